@@ -0,0 +1,67 @@
+package org.example.outfitcheck.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.outfitcheck.dto.CapsuleWardrobeDTO;
+import org.example.outfitcheck.entity.ClothingItem;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.example.outfitcheck.service.OutfitGeneratorBenchmark.inject;
+import static org.example.outfitcheck.service.OutfitGeneratorBenchmark.stubRepository;
+import static org.example.outfitcheck.service.OutfitGeneratorBenchmark.stubWearHistory;
+import static org.example.outfitcheck.service.OutfitGeneratorBenchmark.syntheticWardrobe;
+
+/**
+ * Latency of the capsule wardrobe optimizer (greedy fill, then swaps until the time budget) on
+ * synthetic wardrobes. Picking items one subset at a time would be exponential in the capsule
+ * size; the optimizer works on counts per slot and color, so the wardrobe size should barely
+ * matter and every run should finish well below the budget.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CapsuleOptimizerBenchmark {
+
+    @Param({"200", "2000", "5000"})
+    public int items;
+
+    @Param({"10", "20", "40"})
+    public int capsuleItems;
+
+    @Param({"1", "2"})
+    public int topwearLayers;
+
+    private WardrobeAnalyticsService analytics;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        List<ClothingItem> wardrobeItems = syntheticWardrobe(items, new Random(42));
+
+        ColorSpaceService colors = new ColorSpaceService();
+
+        OutfitGeneratorService generator = new OutfitGeneratorService();
+        WardrobeVersionService versions = new WardrobeVersionService();
+        WardrobeIndexService index = new WardrobeIndexService(stubRepository(wardrobeItems), colors, versions, 1);
+        inject(generator, "wardrobeIndexService", index);
+        inject(generator, "wardrobeVersionService", versions);
+        RecommendationCache cache = new RecommendationCache(0, new SimpleMeterRegistry());
+        inject(generator, "scoringRulesService", new ScoringRulesService(
+                new ClassPathResource("scoring-rules.json"), colors, cache));
+        inject(generator, "recommendationCache", cache);
+        inject(generator, "outfitFeedbackService", new OutfitFeedbackService(index, colors, 5, 50, 1));
+        inject(generator, "wearHistoryService", new WearHistoryService(stubWearHistory()));
+        analytics = new WardrobeAnalyticsService(index, generator, colors, 40, 200L);
+    }
+
+    @Benchmark
+    public CapsuleWardrobeDTO capsule() {
+        return analytics.capsule(1L, capsuleItems, "Casual", "Fall", false, true, topwearLayers, false);
+    }
+}
@@ -0,0 +1,171 @@
+package org.example.outfitcheck.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.outfitcheck.dto.OutfitSuggestionDTO;
+import org.example.outfitcheck.entity.ClothingCategory;
+import org.example.outfitcheck.entity.ClothingItem;
+import org.example.outfitcheck.repository.ClothingItemRepository;
+import org.example.outfitcheck.repository.LoggedOutfitRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the outfit generator on synthetic wardrobes, with the repository stubbed.
+ *
+ * <ul>
+ *     <li>{@code generateOutfits}: the whole request, from loading the items to the DTOs (cache disabled)</li>
+ *     <li>{@code rankSlots}: item scoring and the ranked candidate list of every slot</li>
+ *     <li>{@code search}: one branch-and-bound pass over the candidate pool</li>
+ *     <li>{@code suggest}: search plus diversification of the final suggestions</li>
+ * </ul>
+ *
+ * Run with {@code mvn -P benchmarks verify}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OutfitGeneratorBenchmark {
+
+    private static final String[] CATEGORIES = {
+            "Topwear", "Topwear", "Topwear", "Topwear", "Topwear", "Topwear", "Topwear",
+            "Bottomwear", "Bottomwear", "Bottomwear", "Bottomwear",
+            "Footwear", "Footwear", "Footwear",
+            "Outerwear", "Outerwear",
+            "Headwear",
+            "FullBodywear",
+            "Accessories"
+    };
+    private static final String[] COLORS = {
+            "Black", "White", "Red", "Yellow", "Blue", "Green", "Orange", "Pink", "Brown", "Gray",
+            "Purple", "Beige", "Dark Red", "Light Blue", "Navy Blue", "Olive", null
+    };
+    private static final String[] SEASONS = {"Spring", "Summer", "Fall", "Winter", null};
+    private static final String[] USAGES = {"Casual", "Smart Casual", "Formal", "Sports", "Party", null};
+
+    /** Same as the default of outfit.generator.candidate-pool. */
+    private static final int CANDIDATE_POOL = 256;
+
+    @Param({"20", "200", "2000"})
+    public int items;
+
+    @Param({"1", "2"})
+    public int topwearLayers;
+
+    @Param({"false", "true"})
+    public boolean includeOuterwear;
+
+    @Param({"false", "true"})
+    public boolean includeHeadwear;
+
+    private final String context = "Casual";
+    private final String season = "Fall";
+
+    private OutfitGeneratorService generator;
+    private WardrobeFeatures wardrobe;
+    private OutfitGeneratorService.RankedSlots slots;
+    private OutfitSearch search;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        List<ClothingItem> wardrobeItems = syntheticWardrobe(items, new Random(42));
+        ColorSpaceService colors = new ColorSpaceService();
+
+        generator = new OutfitGeneratorService();
+        WardrobeVersionService versions = new WardrobeVersionService();
+        // nothing is kept by the wardrobe index or the cache, so every invocation measures a full generation
+        WardrobeIndexService index = new WardrobeIndexService(stubRepository(wardrobeItems), colors, versions, 0);
+        inject(generator, "wardrobeIndexService", index);
+        inject(generator, "wardrobeVersionService", versions);
+        RecommendationCache cache = new RecommendationCache(0, new SimpleMeterRegistry());
+        inject(generator, "scoringRulesService", new ScoringRulesService(
+                new ClassPathResource("scoring-rules.json"), colors, cache));
+        inject(generator, "recommendationCache", cache);
+        inject(generator, "outfitFeedbackService", new OutfitFeedbackService(index, colors, 5, 50, 1));
+        inject(generator, "wearHistoryService", new WearHistoryService(stubWearHistory()));
+        inject(generator, "candidatePoolSize", CANDIDATE_POOL);
+
+        wardrobe = WardrobeFeatures.of(wardrobeItems, colors);
+        slots = generator.rankSlots(wardrobe, null, context, season, new Random(7));
+        search = generator.buildSearch(wardrobe, slots, includeHeadwear, includeOuterwear, topwearLayers, false, List.of());
+    }
+
+    @Benchmark
+    public List<OutfitSuggestionDTO> generateOutfits() {
+        return generator.generateOutfits(1L, context, season,
+                includeHeadwear, includeOuterwear, topwearLayers, false);
+    }
+
+    @Benchmark
+    public OutfitGeneratorService.RankedSlots rankSlots() {
+        return generator.rankSlots(wardrobe, null, context, season, new Random(7));
+    }
+
+    @Benchmark
+    public OutfitSearch.Tier search() {
+        return search == null ? null : search.run(null, CANDIDATE_POOL);
+    }
+
+    @Benchmark
+    public List<OutfitSearch.RankedOutfit> suggest() {
+        if (search == null) return null;
+        return new SuggestionStream(search, CANDIDATE_POOL, null).next(OutfitGeneratorService.SUGGESTION_COUNT);
+    }
+
+    static List<ClothingItem> syntheticWardrobe(int size, Random random) {
+        List<ClothingItem> wardrobe = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ClothingCategory category = new ClothingCategory();
+            category.setName(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+
+            ClothingItem item = new ClothingItem();
+            item.setId((long) i + 1);
+            item.setCategory(category);
+            item.setBaseColor(COLORS[random.nextInt(COLORS.length)]);
+            item.setSeason(SEASONS[random.nextInt(SEASONS.length)]);
+            item.setUsage(USAGES[random.nextInt(USAGES.length)]);
+            wardrobe.add(item);
+        }
+        return wardrobe;
+    }
+
+    static ClothingItemRepository stubRepository(List<ClothingItem> wardrobe) {
+        return (ClothingItemRepository) Proxy.newProxyInstance(
+                ClothingItemRepository.class.getClassLoader(),
+                new Class<?>[]{ClothingItemRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findByOwnerIdAndInLaundryFalse")) {
+                        return new ArrayList<>(wardrobe);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /** Wear history of a user that never logged an outfit. */
+    static LoggedOutfitRepository stubWearHistory() {
+        return (LoggedOutfitRepository) Proxy.newProxyInstance(
+                LoggedOutfitRepository.class.getClassLoader(),
+                new Class<?>[]{LoggedOutfitRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findLastWornBetween")) {
+                        return new ArrayList<>();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    static void inject(Object target, String fieldName, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
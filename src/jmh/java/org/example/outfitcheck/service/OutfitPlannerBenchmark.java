@@ -0,0 +1,68 @@
+package org.example.outfitcheck.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.outfitcheck.dto.OutfitPlanDTO;
+import org.example.outfitcheck.entity.ClothingItem;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.example.outfitcheck.service.OutfitGeneratorBenchmark.inject;
+import static org.example.outfitcheck.service.OutfitGeneratorBenchmark.stubRepository;
+import static org.example.outfitcheck.service.OutfitGeneratorBenchmark.stubWearHistory;
+import static org.example.outfitcheck.service.OutfitGeneratorBenchmark.syntheticWardrobe;
+
+/**
+ * End-to-end latency of the weekly planner (one shared search, greedy plan, local search) on
+ * large synthetic wardrobes. The local search stops at the planner's time budget, so the
+ * interesting numbers are how far below that budget the plan finishes.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OutfitPlannerBenchmark {
+
+    @Param({"200", "2000", "5000"})
+    public int items;
+
+    @Param({"7", "14"})
+    public int days;
+
+    @Param({"1", "2"})
+    public int topwearLayers;
+
+    private OutfitGeneratorService generator;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        List<ClothingItem> wardrobeItems = syntheticWardrobe(items, new Random(42));
+
+        ColorSpaceService colors = new ColorSpaceService();
+
+        generator = new OutfitGeneratorService();
+        WardrobeVersionService versions = new WardrobeVersionService();
+        WardrobeIndexService index = new WardrobeIndexService(stubRepository(wardrobeItems), colors, versions, 1);
+        inject(generator, "wardrobeIndexService", index);
+        inject(generator, "wardrobeVersionService", versions);
+        RecommendationCache cache = new RecommendationCache(0, new SimpleMeterRegistry());
+        inject(generator, "scoringRulesService", new ScoringRulesService(
+                new ClassPathResource("scoring-rules.json"), colors, cache));
+        inject(generator, "recommendationCache", cache);
+        inject(generator, "outfitFeedbackService", new OutfitFeedbackService(index, colors, 5, 50, 1));
+        inject(generator, "wearHistoryService", new WearHistoryService(stubWearHistory()));
+        inject(generator, "candidatePoolSize", 256);
+        inject(generator, "plannerMaxDays", 14);
+        inject(generator, "plannerTimeBudgetMs", 200L);
+    }
+
+    @Benchmark
+    public OutfitPlanDTO planWeek() {
+        return generator.planOutfits(1L, days, "Casual", "Fall", false, true, topwearLayers, false, 2);
+    }
+}
@@ -2,15 +2,22 @@ package org.example.outfitcheck.controller;
 
 import jakarta.persistence.EntityNotFoundException;
 import org.example.outfitcheck.dto.ClothingItemRequest;
+import org.example.outfitcheck.dto.ImageIngestionJobDTO;
 import org.example.outfitcheck.dto.LastUsedResponse;
 import org.example.outfitcheck.dto.VisionAnalysisResponse;
 import org.example.outfitcheck.entity.ClothingItem;
 import org.example.outfitcheck.service.ClothingItemService;
+import org.example.outfitcheck.service.ImageIngestionService;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -19,10 +26,14 @@ import java.util.Optional;
 @RestController
 @RequestMapping("/api/clothing")
 public class ClothingItemController {
+    private static final long UPLOAD_JOB_EVENTS_TIMEOUT_MS = 120_000;
+
     private final ClothingItemService clothingItemService;
+    private final ImageIngestionService imageIngestionService;
 
-    public ClothingItemController(ClothingItemService clothingItemService) {
+    public ClothingItemController(ClothingItemService clothingItemService, ImageIngestionService imageIngestionService) {
         this.clothingItemService = clothingItemService;
+        this.imageIngestionService = imageIngestionService;
     }
 
     @PostMapping("/add")
@@ -52,6 +63,8 @@ public class ClothingItemController {
         try {
             VisionAnalysisResponse result = clothingItemService.uploadTemporaryImage(file);
             return ResponseEntity.ok(result);
+        } catch (ResponseStatusException e) {
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body(
                     new VisionAnalysisResponse("error.webp", e.getMessage(), new ArrayList<>(), null, null, null, null, null, null)
@@ -59,6 +72,36 @@ public class ClothingItemController {
         }
     }
 
+    /**
+     * Same analysis as {@code /upload-temp-image}, as a background job: answers 202 with the job
+     * id right away. The result is then polled from {@code /upload-jobs/{jobId}}, or sent as one
+     * SSE "job" event by {@code /upload-jobs/{jobId}/events} once the job is finished.
+     */
+    @PostMapping("/upload-jobs")
+    public ResponseEntity<ImageIngestionJobDTO> submitUploadJob(@RequestParam("file") MultipartFile file) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(imageIngestionService.submit(file));
+    }
+
+    @GetMapping("/upload-jobs/{jobId}")
+    public ResponseEntity<ImageIngestionJobDTO> getUploadJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(imageIngestionService.status(jobId));
+    }
+
+    @GetMapping(value = "/upload-jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter watchUploadJob(@PathVariable String jobId) {
+        SseEmitter emitter = new SseEmitter(UPLOAD_JOB_EVENTS_TIMEOUT_MS);
+        imageIngestionService.whenFinished(jobId).thenAccept(job -> {
+            try {
+                emitter.send(SseEmitter.event().name("job").data(job, MediaType.APPLICATION_JSON));
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                // client went away; the job stays available for polling
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
 
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<ClothingItem>> getClothingItemsByUser(@PathVariable Long userId) {
@@ -6,6 +6,8 @@ import org.example.outfitcheck.service.OpenAIService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/openai")
 public class OpenAIController {
@@ -14,8 +16,8 @@ public class OpenAIController {
     private OpenAIService openAIService;
 
     @PostMapping("/analyze-label")
-    public AnalyzeLabelResponse analyzeLabel(@RequestBody AnalyzeLabelRequest request) {
-        var symbols = openAIService.analyzeLabel(request.getImageBase64());
-        return new AnalyzeLabelResponse(symbols);
+    public CompletableFuture<AnalyzeLabelResponse> analyzeLabel(@RequestBody AnalyzeLabelRequest request) {
+        return openAIService.analyzeLabelAsync(request.getImageBase64())
+                .thenApply(symbols -> new AnalyzeLabelResponse(symbols));
     }
 }
@@ -11,12 +11,14 @@ import org.example.outfitcheck.repository.ClothingItemRepository;
 import org.example.outfitcheck.repository.OutfitCategoryRepository;
 import org.example.outfitcheck.repository.OutfitRepository;
 import org.example.outfitcheck.repository.UserRepository;
+import org.example.outfitcheck.service.OutfitSimilarityService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -28,15 +30,17 @@ public class OutfitController {
     private final UserRepository userRepository;
     private final ClothingItemRepository clothingItemRepository;
     private final OutfitCategoryRepository outfitCategoryRepository;
+    private final OutfitSimilarityService outfitSimilarityService;
 
     private final JwtUtil jwtUtil;
 
 
-    public OutfitController(OutfitRepository outfitRepository, UserRepository userRepository, ClothingItemRepository clothingItemRepository, OutfitCategoryRepository outfitCategoryRepository, JwtUtil jwtUtil) {
+    public OutfitController(OutfitRepository outfitRepository, UserRepository userRepository, ClothingItemRepository clothingItemRepository, OutfitCategoryRepository outfitCategoryRepository, OutfitSimilarityService outfitSimilarityService, JwtUtil jwtUtil) {
         this.outfitRepository = outfitRepository;
         this.userRepository = userRepository;
         this.clothingItemRepository = clothingItemRepository;
         this.outfitCategoryRepository = outfitCategoryRepository;
+        this.outfitSimilarityService = outfitSimilarityService;
         this.jwtUtil = jwtUtil;
     }
 
@@ -65,6 +69,7 @@ public class OutfitController {
         newOutfit.setVisible(outfitDTO.isVisible());
 
         Outfit savedOutfit = outfitRepository.save(newOutfit);
+        outfitSimilarityService.outfitSaved(savedOutfit);
         return ResponseEntity.ok(savedOutfit);
     }
 
@@ -100,6 +105,7 @@ public class OutfitController {
     public ResponseEntity<Void> deleteOutfit(@PathVariable Long id) {
         if (outfitRepository.existsById(id)) {
             outfitRepository.deleteById(id);
+            outfitSimilarityService.outfitDeleted(id);
             return ResponseEntity.ok().build();
         }
         return ResponseEntity.notFound().build();
@@ -126,6 +132,7 @@ public class OutfitController {
 
             outfit.setVisible(!outfit.isVisible());
             Outfit updatedOutfit = outfitRepository.save(outfit);
+            outfitSimilarityService.outfitSaved(updatedOutfit);
 
             return ResponseEntity.ok(updatedOutfit);
         } catch (RuntimeException e) {
@@ -133,6 +140,19 @@ public class OutfitController {
         }
     }
 
+    // 🔹 Outfit-uri asemanatoare: ale utilizatorului si cele publice, cele mai apropiate primele
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<List<Outfit>> getSimilarOutfits(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        List<Long> ids = outfitSimilarityService.similarOutfitIds(id, userId, limit);
+        List<Outfit> outfits = new ArrayList<>(outfitRepository.findAllById(ids));
+        outfits.sort(Comparator.comparingInt(outfit -> ids.indexOf(outfit.getId())));
+        return ResponseEntity.ok(outfits);
+    }
+
     @GetMapping("/clothing-items/{itemId}/outfits")
     public ResponseEntity<List<Outfit>> getOutfitsByClothingItem(@PathVariable Long itemId) {
         ClothingItem item = clothingItemRepository.findById(itemId)
@@ -1,24 +1,55 @@
 package org.example.outfitcheck.controller;
 
+import org.example.outfitcheck.dto.CapsuleRequest;
+import org.example.outfitcheck.dto.CapsuleWardrobeDTO;
+import org.example.outfitcheck.dto.OutfitBatchRequest;
+import org.example.outfitcheck.dto.OutfitFeedbackRequest;
 import org.example.outfitcheck.dto.OutfitGenerationRequest;
+import org.example.outfitcheck.dto.OutfitGenerationResultDTO;
+import org.example.outfitcheck.dto.OutfitPlanDTO;
+import org.example.outfitcheck.dto.OutfitPlanRequest;
 import org.example.outfitcheck.dto.OutfitSuggestionDTO;
+import org.example.outfitcheck.dto.OutfitSuggestionPageDTO;
+import org.example.outfitcheck.dto.PurchaseSuggestionDTO;
+import org.example.outfitcheck.dto.WardrobeVersatilityDTO;
+import org.example.outfitcheck.service.DailyOutfitService;
+import org.example.outfitcheck.service.OutfitFeedbackService;
 import org.example.outfitcheck.service.OutfitGeneratorService;
+import org.example.outfitcheck.service.WardrobeAnalyticsService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/recommendations")
 public class OutfitRecommendationController {
 
+    private static final long STREAM_TIMEOUT_MS = 30_000;
+    /** "false" when a budgeted search ran out before it could prove the suggestions best. */
+    private static final String EXHAUSTIVE_HEADER = "X-Outfit-Search-Exhaustive";
+
     private final OutfitGeneratorService outfitGeneratorService;
+    private final OutfitFeedbackService outfitFeedbackService;
+    private final DailyOutfitService dailyOutfitService;
+    private final WardrobeAnalyticsService wardrobeAnalyticsService;
 
-    public OutfitRecommendationController(OutfitGeneratorService outfitGeneratorService) {
+    public OutfitRecommendationController(OutfitGeneratorService outfitGeneratorService,
+                                          OutfitFeedbackService outfitFeedbackService,
+                                          DailyOutfitService dailyOutfitService,
+                                          WardrobeAnalyticsService wardrobeAnalyticsService) {
         this.outfitGeneratorService = outfitGeneratorService;
+        this.outfitFeedbackService = outfitFeedbackService;
+        this.dailyOutfitService = dailyOutfitService;
+        this.wardrobeAnalyticsService = wardrobeAnalyticsService;
     }
 
 
@@ -26,24 +57,174 @@ public class OutfitRecommendationController {
     public ResponseEntity<List<OutfitSuggestionDTO>> generateOutfits(
             @RequestBody OutfitGenerationRequest request
     ) {
-        List<OutfitSuggestionDTO> outfits = outfitGeneratorService.generateOutfits(
+        OutfitGenerationResultDTO result = outfitGeneratorService.generateOutfits(
                 request.getUserId(),
                 request.getContext(),
                 request.getSeason(),
                 request.isIncludeHeadwear(),
                 request.isIncludeOuterwear(),
                 request.getTopwearLayers(),
-                request.isPreferFullBodywear()
+                request.isPreferFullBodywear(),
+                request.getPinnedItemIds(),
+                request.getBudgetMillis(),
+                request.getBudgetNodes()
         );
+        List<OutfitSuggestionDTO> outfits = result.getOutfits();
 
         if (outfits == null || outfits.isEmpty()) {
             System.out.println("⚠️  No outfit could be generated.");
-            return ResponseEntity.noContent().build();
+            return ResponseEntity.noContent()
+                    .header(EXHAUSTIVE_HEADER, String.valueOf(result.isExhaustive()))
+                    .build();
         }
 
         System.out.println("✅ Generated outfits: " + outfits);
+        return ResponseEntity.ok()
+                .header(EXHAUSTIVE_HEADER, String.valueOf(result.isExhaustive()))
+                .body(outfits);
+    }
+
+    /**
+     * Same as {@code /generate}, but sends each outfit as an SSE "outfit" event as soon as it is
+     * known, instead of waiting for all of them.
+     */
+    @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOutfits(@RequestBody OutfitGenerationRequest request) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        outfitGeneratorService.streamOutfits(
+                request.getUserId(),
+                request.getContext(),
+                request.getSeason(),
+                request.isIncludeHeadwear(),
+                request.isIncludeOuterwear(),
+                request.getTopwearLayers(),
+                request.isPreferFullBodywear(),
+                request.getPinnedItemIds(),
+                outfit -> {
+                    try {
+                        emitter.send(SseEmitter.event().name("outfit").data(outfit, MediaType.APPLICATION_JSON));
+                    } catch (IOException | IllegalStateException e) {
+                        // client went away; the remaining outfits still end up in the cache
+                        emitter.completeWithError(e);
+                    }
+                }
+        ).whenComplete((done, error) -> {
+            if (error != null) {
+                emitter.completeWithError(error);
+            } else {
+                emitter.complete();
+            }
+        });
+        return emitter;
+    }
+
+    @PostMapping("/generate/batch")
+    public ResponseEntity<List<List<OutfitSuggestionDTO>>> generateOutfitBatch(
+            @RequestBody OutfitBatchRequest request
+    ) {
+        List<List<OutfitSuggestionDTO>> outfits =
+                outfitGeneratorService.generateOutfitBatch(request.getUserId(), request.getRequests());
         return ResponseEntity.ok(outfits);
     }
 
+    @PostMapping("/plan")
+    public ResponseEntity<OutfitPlanDTO> planOutfits(@RequestBody OutfitPlanRequest request) {
+        OutfitPlanDTO plan = outfitGeneratorService.planOutfits(
+                request.getUserId(),
+                request.getDays(),
+                request.getContext(),
+                request.getSeason(),
+                request.isIncludeHeadwear(),
+                request.isIncludeOuterwear(),
+                request.getTopwearLayers(),
+                request.isPreferFullBodywear(),
+                request.getMaxItemUses()
+        );
+        return ResponseEntity.ok(plan);
+    }
+
+    @PostMapping("/generate/page")
+    public ResponseEntity<OutfitSuggestionPageDTO> generateOutfitPage(
+            @RequestBody OutfitGenerationRequest request
+    ) {
+        OutfitSuggestionPageDTO page = outfitGeneratorService.generateOutfitPage(
+                request.getUserId(),
+                request.getContext(),
+                request.getSeason(),
+                request.isIncludeHeadwear(),
+                request.isIncludeOuterwear(),
+                request.getTopwearLayers(),
+                request.isPreferFullBodywear(),
+                request.getPinnedItemIds(),
+                request.getSeed()
+        );
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping("/generate/more")
+    public ResponseEntity<OutfitSuggestionPageDTO> nextOutfitPage(@RequestParam String cursor) {
+        return ResponseEntity.ok(outfitGeneratorService.nextOutfitPage(cursor));
+    }
+
+    /** Today's outfit, precomputed overnight; 204 when the wardrobe allows none. */
+    @GetMapping("/daily")
+    public ResponseEntity<OutfitSuggestionDTO> getOutfitOfTheDay(@RequestParam Long userId) {
+        OutfitSuggestionDTO outfit = dailyOutfitService.getOutfitOfTheDay(userId);
+        return outfit != null ? ResponseEntity.ok(outfit) : ResponseEntity.noContent().build();
+    }
+
+    /** Accept or reject a suggestion; the user's next suggestions are scored with what it taught. */
+    @PostMapping("/feedback")
+    public ResponseEntity<Void> recordFeedback(@RequestBody OutfitFeedbackRequest request) {
+        outfitFeedbackService.recordFeedback(request.getUserId(), request.getOutfit(), request.isAccepted());
+        return ResponseEntity.noContent().build();
+    }
+
+    /** How many outfits of the given shape each available item is part of. */
+    @GetMapping("/versatility")
+    public ResponseEntity<WardrobeVersatilityDTO> getVersatility(
+            @RequestParam Long userId,
+            @RequestParam(required = false) String context,
+            @RequestParam(required = false) String season,
+            @RequestParam(defaultValue = "false") boolean includeHeadwear,
+            @RequestParam(defaultValue = "false") boolean includeOuterwear,
+            @RequestParam(defaultValue = "1") int topwearLayers,
+            @RequestParam(defaultValue = "false") boolean preferFullBodywear
+    ) {
+        return ResponseEntity.ok(wardrobeAnalyticsService.versatility(userId, context, season,
+                includeHeadwear, includeOuterwear, topwearLayers, preferFullBodywear));
+    }
+
+    /** The few available items that make the most outfits together, e.g. for packing. */
+    @PostMapping("/capsule")
+    public ResponseEntity<CapsuleWardrobeDTO> buildCapsule(@RequestBody CapsuleRequest request) {
+        CapsuleWardrobeDTO capsule = wardrobeAnalyticsService.capsule(
+                request.getUserId(),
+                request.getItemCount(),
+                request.getContext(),
+                request.getSeason(),
+                request.isIncludeHeadwear(),
+                request.isIncludeOuterwear(),
+                request.getTopwearLayers(),
+                request.isPreferFullBodywear()
+        );
+        return ResponseEntity.ok(capsule);
+    }
+
+    /** The items (category, color, season) that would add the most outfits of the given shape. */
+    @GetMapping("/next-purchase")
+    public ResponseEntity<List<PurchaseSuggestionDTO>> getNextPurchase(
+            @RequestParam Long userId,
+            @RequestParam(required = false) String context,
+            @RequestParam(required = false) String season,
+            @RequestParam(defaultValue = "false") boolean includeHeadwear,
+            @RequestParam(defaultValue = "false") boolean includeOuterwear,
+            @RequestParam(defaultValue = "1") int topwearLayers,
+            @RequestParam(defaultValue = "false") boolean preferFullBodywear
+    ) {
+        return ResponseEntity.ok(wardrobeAnalyticsService.nextPurchase(userId, context, season,
+                includeHeadwear, includeOuterwear, topwearLayers, preferFullBodywear));
+    }
+
 
 }
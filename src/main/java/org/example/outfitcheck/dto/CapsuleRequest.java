@@ -0,0 +1,15 @@
+package org.example.outfitcheck.dto;
+import lombok.*;
+
+@Getter
+@Setter
+public class CapsuleRequest {
+    private Long userId;
+    private int itemCount;             // ex: 10 items for a trip
+    private String context;            // ex: "Casual"
+    private String season;             // ex: "Summer"
+    private boolean includeHeadwear;
+    private boolean includeOuterwear;
+    private int topwearLayers;         // 1 or 2
+    private boolean preferFullBodywear;
+}
@@ -0,0 +1,15 @@
+package org.example.outfitcheck.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CapsuleWardrobeDTO {
+    private List<Long> itemIds;
+    private long outfitCount;       // outfit-uri posibile doar cu articolele alese
+}
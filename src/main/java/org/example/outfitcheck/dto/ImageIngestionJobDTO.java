@@ -0,0 +1,15 @@
+package org.example.outfitcheck.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageIngestionJobDTO {
+    private String jobId;
+    private String status;                  // etapa curenta: QUEUED ... DONE / FAILED
+    private VisionAnalysisResponse result;  // doar cand status = DONE
+    private String error;                   // doar cand status = FAILED
+}
@@ -0,0 +1,13 @@
+package org.example.outfitcheck.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemVersatilityDTO {
+    private Long itemId;
+    private long outfitCount;       // 0 pentru articolele care nu trec filtrele
+}
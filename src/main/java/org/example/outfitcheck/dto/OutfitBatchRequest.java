@@ -0,0 +1,11 @@
+package org.example.outfitcheck.dto;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class OutfitBatchRequest {
+    private Long userId;
+    private List<OutfitGenerationRequest> requests; // ex: one per day; userId/seed inside are ignored
+}
@@ -0,0 +1,10 @@
+package org.example.outfitcheck.dto;
+import lombok.*;
+
+@Getter
+@Setter
+public class OutfitFeedbackRequest {
+    private Long userId;
+    private OutfitSuggestionDTO outfit;   // sugestia asa cum a fost primita
+    private boolean accepted;             // false = respinsa
+}
@@ -1,5 +1,8 @@
 package org.example.outfitcheck.dto;
 import lombok.*;
+
+import java.util.List;
+
 @Getter
 @Setter
 public class OutfitGenerationRequest {
@@ -10,5 +13,9 @@ public class OutfitGenerationRequest {
     private boolean includeOuterwear;  // whether to include outerwear
     private int topwearLayers;         // number of top layers (1 or 2)
     private boolean preferFullBodywear;// whether to prefer a full-body outfit
+    private List<Long> pinnedItemIds;  // optional, items every outfit must contain
+    private Long seed;                 // optional, makes paged generation reproducible
+    private Long budgetMillis;         // optional, time limit for the search
+    private Long budgetNodes;          // optional, work limit (search nodes)
 }
 
@@ -0,0 +1,15 @@
+package org.example.outfitcheck.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutfitGenerationResultDTO {
+    private List<OutfitSuggestionDTO> outfits;
+    private boolean exhaustive;     // false cand bugetul s-a terminat inainte de cautarea completa
+}
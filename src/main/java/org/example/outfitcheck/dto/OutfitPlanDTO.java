@@ -0,0 +1,15 @@
+package org.example.outfitcheck.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutfitPlanDTO {
+    private List<OutfitSuggestionDTO> days;     // null pentru o zi fara outfit posibil
+    private double totalScore;
+}
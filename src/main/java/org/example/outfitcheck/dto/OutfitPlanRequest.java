@@ -0,0 +1,16 @@
+package org.example.outfitcheck.dto;
+import lombok.*;
+
+@Getter
+@Setter
+public class OutfitPlanRequest {
+    private Long userId;
+    private int days;                  // ex: 7 for a week
+    private String context;            // ex: "Casual"
+    private String season;             // ex: "Spring"
+    private boolean includeHeadwear;
+    private boolean includeOuterwear;
+    private int topwearLayers;         // 1 or 2
+    private boolean preferFullBodywear;
+    private Integer maxItemUses;       // optional, days an item may be worn (default 2)
+}
@@ -0,0 +1,16 @@
+package org.example.outfitcheck.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutfitSuggestionPageDTO {
+    private List<OutfitSuggestionDTO> outfits;
+    private String nextCursor;      // null cand nu mai sunt outfit-uri
+    private Long seed;              // permite reproducerea aceleiasi ordini
+}
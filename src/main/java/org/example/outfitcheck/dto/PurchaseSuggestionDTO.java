@@ -0,0 +1,15 @@
+package org.example.outfitcheck.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurchaseSuggestionDTO {
+    private String category;        // Ex: "Bottomwear"
+    private String color;
+    private String season;          // null cand nu s-a cerut un sezon
+    private long newOutfits;
+}
@@ -0,0 +1,15 @@
+package org.example.outfitcheck.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WardrobeVersatilityDTO {
+    private long totalOutfits;
+    private List<ItemVersatilityDTO> items;     // cele mai versatile primele
+}
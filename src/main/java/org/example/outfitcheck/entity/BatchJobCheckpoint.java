@@ -0,0 +1,31 @@
+package org.example.outfitcheck.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/** Progress of a batch job run, so a restarted node continues where the last one stopped. */
+@Entity
+@Table(name = "batch_job_checkpoints")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@ToString
+public class BatchJobCheckpoint {
+
+    @Id
+    private String jobName;
+
+    @Column(nullable = false)
+    private LocalDate runDate;
+
+    /** Every key up to and including this one is done. */
+    @Column(nullable = false)
+    private Long lastKey;
+
+    private boolean completed;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,43 @@
+package org.example.outfitcheck.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "daily_outfit_suggestions",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "date"}))
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@ToString
+public class DailyOutfitSuggestion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "daily_outfit_seq")
+    @SequenceGenerator(name = "daily_outfit_seq", sequenceName = "daily_outfit_sequence", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    private String context;
+    private String season;
+
+    // toate null daca nu s-a putut genera nicio tinuta
+    private Long top1Id;
+    private Long top2Id;
+    private Long bottomId;
+    private Long footwearId;
+    private Long outerwearId;
+    private Long headwearId;
+    private Long fullBodywearId;
+    private double score;
+
+    @Column(nullable = false)
+    private LocalDateTime generatedAt;
+}
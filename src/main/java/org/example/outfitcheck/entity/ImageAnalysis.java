@@ -0,0 +1,47 @@
+package org.example.outfitcheck.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Analysis of an uploaded image, kept by content hash so a re-upload of the same photo skips the external calls. */
+@Entity
+@Table(name = "image_analyses", indexes = @Index(columnList = "lastUsedAt"))
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@ToString
+public class ImageAnalysis {
+
+    @Embeddable
+    @Getter @Setter
+    @NoArgsConstructor @AllArgsConstructor
+    @ToString
+    public static class Color {
+        private String hex;
+        private String name;
+    }
+
+    /** SHA-256 of the uploaded bytes, in hex. */
+    @Id
+    private String contentHash;
+
+    private String suggestedCategory;
+
+    @ElementCollection
+    @CollectionTable(name = "image_analysis_colors", joinColumns = @JoinColumn(name = "content_hash"))
+    @OrderColumn(name = "position")
+    private List<Color> topColors = new ArrayList<>();
+
+    private String brand;
+    private String subCategory;
+    private String articleType;
+    private String baseColour;
+    private String season;
+    private String usage;
+
+    @Column(nullable = false)
+    private LocalDateTime lastUsedAt;
+}
@@ -1,7 +1,10 @@
 package org.example.outfitcheck.repository;
 
 import org.example.outfitcheck.entity.ClothingItem;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
@@ -10,4 +13,8 @@ public interface ClothingItemRepository extends JpaRepository<ClothingItem, Long
     List<ClothingItem> findByOwnerId(Long userId);
     List<ClothingItem> findByOwnerIdAndInLaundryFalse(Long ownerId);
 
+    /** Keyset page of the users owning at least one available item, by ascending id. */
+    @Query("select distinct c.owner.id from ClothingItem c " +
+            "where c.inLaundry = false and c.owner.id > :afterUserId order by c.owner.id")
+    List<Long> findOwnerIdsAfter(@Param("afterUserId") Long afterUserId, Pageable page);
 }
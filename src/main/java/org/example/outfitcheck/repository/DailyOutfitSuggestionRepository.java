@@ -0,0 +1,14 @@
+package org.example.outfitcheck.repository;
+
+import org.example.outfitcheck.entity.DailyOutfitSuggestion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface DailyOutfitSuggestionRepository extends JpaRepository<DailyOutfitSuggestion, Long> {
+    Optional<DailyOutfitSuggestion> findByUserIdAndDate(Long userId, LocalDate date);
+    boolean existsByUserIdAndDate(Long userId, LocalDate date);
+}
@@ -0,0 +1,34 @@
+package org.example.outfitcheck.repository;
+
+import org.example.outfitcheck.entity.ImageAnalysis;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ImageAnalysisRepository extends JpaRepository<ImageAnalysis, String> {
+
+    /** The analysis with its colors, readable outside a transaction. */
+    @EntityGraph(attributePaths = "topColors")
+    Optional<ImageAnalysis> findWithColorsByContentHash(String contentHash);
+
+    /** Marks the analysis as used; its own transaction, so a failure cannot fail the caller's. */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("UPDATE ImageAnalysis a SET a.lastUsedAt = :usedAt WHERE a.contentHash = :contentHash")
+    int touch(@Param("contentHash") String contentHash, @Param("usedAt") LocalDateTime usedAt);
+
+    /** Least recently used first. */
+    @Query("SELECT a.contentHash FROM ImageAnalysis a ORDER BY a.lastUsedAt ASC")
+    List<String> findLeastRecentlyUsed(Pageable pageable);
+}
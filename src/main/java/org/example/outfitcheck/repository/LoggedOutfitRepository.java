@@ -3,6 +3,8 @@ package org.example.outfitcheck.repository;
 import org.example.outfitcheck.entity.LoggedOutfit;
 import org.example.outfitcheck.entity.Outfit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -14,4 +16,15 @@ public interface LoggedOutfitRepository extends JpaRepository<LoggedOutfit, Long
 
     List<LoggedOutfit> findByOutfitIn(List<Outfit> outfits);
 
+    interface ItemLastWorn {
+        Long getItemId();
+        LocalDate getLastWorn();
+    }
+
+    /** Last day each item of the user was worn between {@code from} and {@code to}, one row per item. */
+    @Query("select i.id as itemId, max(l.date) as lastWorn from LoggedOutfit l join l.outfit o join o.clothingItems i " +
+            "where l.userId = :userId and l.date between :from and :to group by i.id")
+    List<ItemLastWorn> findLastWornBetween(@Param("userId") Long userId,
+                                           @Param("from") LocalDate from,
+                                           @Param("to") LocalDate to);
 }
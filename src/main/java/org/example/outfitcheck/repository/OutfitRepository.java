@@ -3,8 +3,12 @@ package org.example.outfitcheck.repository;
 import org.example.outfitcheck.entity.ClothingItem;
 import org.example.outfitcheck.entity.Outfit;
 import org.example.outfitcheck.entity.OutfitCategory;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -15,4 +19,23 @@ public interface OutfitRepository extends JpaRepository<Outfit, Long> {
 
     List<Outfit> findAllByCategoriesContaining(OutfitCategory category);
 
+    interface OutfitItemFeatures {
+        Long getOutfitId();
+        Long getCreatorId();
+        Boolean getVisible();
+        String getCategory();
+        String getBaseColor();
+        String getSeason();
+        String getUsage();
+    }
+
+    /** Keyset page of outfit ids, ascending. */
+    @Query("select o.id from Outfit o where o.id > :afterId order by o.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable page);
+
+    /** The attributes of every item of these outfits, one row per outfit and item. */
+    @Query("select o.id as outfitId, u.id as creatorId, o.visible as visible, c.name as category, " +
+            "i.baseColor as baseColor, i.season as season, i.usage as usage " +
+            "from Outfit o left join o.creator u join o.clothingItems i left join i.category c where o.id in :ids")
+    List<OutfitItemFeatures> findItemFeatures(@Param("ids") Collection<Long> ids);
 }
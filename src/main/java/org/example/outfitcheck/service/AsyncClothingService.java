@@ -1,31 +1,39 @@
 package org.example.outfitcheck.service;
 
-import org.example.outfitcheck.dto.VisionAnalysisResponse;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/** Vision and the classifier on their own executors, see {@link OutboundExecutors}. */
 @Service
 public class AsyncClothingService {
 
     private final VisionService visionService;
     private final FlaskClassifierService flaskClassifierService;
+    private final OutboundExecutors outboundExecutors;
 
-    public AsyncClothingService(VisionService visionService, FlaskClassifierService flaskClassifierService) {
+    public AsyncClothingService(VisionService visionService, FlaskClassifierService flaskClassifierService,
+                                OutboundExecutors outboundExecutors) {
         this.visionService = visionService;
         this.flaskClassifierService = flaskClassifierService;
+        this.outboundExecutors = outboundExecutors;
     }
 
-    @Async
-    public CompletableFuture<Map<String, Object>> analyzeWithGoogleVisionAsync(File file) throws Exception {
-        return CompletableFuture.completedFuture(visionService.analyzeWithGoogleVision(file));
+    public CompletableFuture<Map<String, Object>> analyzeWithGoogleVisionAsync(File file) {
+        return outboundExecutors.supply(OutboundExecutors.Downstream.VISION, () -> {
+            try {
+                return visionService.analyzeWithGoogleVision(file);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        });
     }
 
-    @Async
     public CompletableFuture<Map<String, String>> callFlaskClassifierAsync(File file) {
-        return CompletableFuture.completedFuture(flaskClassifierService.callFlaskClassifier(file));
+        return outboundExecutors.supply(OutboundExecutors.Downstream.CLASSIFIER,
+                () -> flaskClassifierService.callFlaskClassifier(file));
     }
 }
@@ -0,0 +1,120 @@
+package org.example.outfitcheck.service;
+
+/**
+ * Picks {@code itemCount} items that together make as many outfits ({@link OutfitCounts}) as
+ * possible.
+ *
+ * The number of outfits only depends on how many items of each slot and color are picked, so the
+ * search runs over those counts instead of over item subsets. It starts from one outfit of the
+ * most versatile compatible colors, fills up greedily with the item that adds the most outfits,
+ * and then swaps one item for another while that helps and the deadline has not passed. A swap
+ * is priced with one count of the capsule without the removed item: its gains are exactly what
+ * each replacement would add.
+ */
+final class CapsuleOptimizer {
+
+    private final long[][] available;
+    private final ScoringRules rules;
+    private final int[] shape;
+    private final int itemCount;
+    private final long deadline;
+
+    /** Picked items per slot and color. */
+    private final long[][] picked;
+    private int size;
+
+    /** @param available candidates per slot and color, see {@link OutfitCounts#groups} */
+    CapsuleOptimizer(long[][] available, ScoringRules rules, int[] shape, int itemCount, long deadlineNanos) {
+        this.available = available;
+        this.rules = rules;
+        this.shape = shape;
+        this.itemCount = itemCount;
+        this.deadline = deadlineNanos;
+        this.picked = new long[available.length][available[0].length];
+    }
+
+    /** Items to pick per slot and color. */
+    long[][] solve() {
+        OutfitCounts wardrobe = new OutfitCounts(available, rules, shape);
+        seed(wardrobe);
+        fill(wardrobe);
+        boolean improved = true;
+        while (improved && System.nanoTime() - deadline < 0) {
+            improved = swap();
+        }
+        return picked;
+    }
+
+    /** One item per position, each the most versatile one that clashes with none picked before. */
+    private void seed(OutfitCounts wardrobe) {
+        int allowed = -1;
+        for (int slot : shape) {
+            if (size == itemCount) return;
+            int best = -1;
+            for (int color = 0; color < picked[slot].length; color++) {
+                if (picked[slot][color] == available[slot][color] || (allowed & 1 << color) == 0) continue;
+                if (best < 0 || wardrobe.share[slot][color] > wardrobe.share[slot][best]) best = color;
+            }
+            if (best < 0) return;
+            pick(slot, best, 1);
+            allowed &= rules.compatibleColors(best);
+        }
+    }
+
+    /** Adds the item that adds the most outfits until the capsule is full; ties go to the more versatile one. */
+    private void fill(OutfitCounts wardrobe) {
+        while (size < itemCount) {
+            OutfitCounts capsule = new OutfitCounts(picked, rules, shape);
+            int bestSlot = -1;
+            int bestColor = -1;
+            for (int slot : shape) {
+                for (int color = 0; color < picked[slot].length; color++) {
+                    if (picked[slot][color] == available[slot][color]) continue;
+                    if (bestSlot < 0 || capsule.gain[slot][color] > capsule.gain[bestSlot][bestColor]
+                            || capsule.gain[slot][color] == capsule.gain[bestSlot][bestColor]
+                            && wardrobe.share[slot][color] > wardrobe.share[bestSlot][bestColor]) {
+                        bestSlot = slot;
+                        bestColor = color;
+                    }
+                }
+            }
+            if (bestSlot < 0) return;
+            pick(bestSlot, bestColor, 1);
+        }
+    }
+
+    /** Applies the best improving swap of one item for another; false when there is none. */
+    private boolean swap() {
+        long current = new OutfitCounts(picked, rules, shape).total;
+        long best = current;
+        int[] move = null;
+        for (int outSlot = 0; outSlot < picked.length; outSlot++) {
+            for (int outColor = 0; outColor < picked[outSlot].length; outColor++) {
+                if (picked[outSlot][outColor] == 0) continue;
+                if (System.nanoTime() - deadline >= 0) break;
+                pick(outSlot, outColor, -1);
+                OutfitCounts without = new OutfitCounts(picked, rules, shape);
+                for (int inSlot : shape) {
+                    for (int inColor = 0; inColor < picked[inSlot].length; inColor++) {
+                        if (picked[inSlot][inColor] == available[inSlot][inColor]) continue;
+                        long outfits = OutfitCounts.plus(without.total, without.gain[inSlot][inColor]);
+                        if (outfits > best) {
+                            best = outfits;
+                            move = new int[]{outSlot, outColor, inSlot, inColor};
+                        }
+                    }
+                }
+                pick(outSlot, outColor, 1);
+            }
+        }
+        if (move == null) return false;
+        pick(move[0], move[1], -1);
+        pick(move[2], move[3], 1);
+        return true;
+    }
+
+    private void pick(int slot, int color, int items) {
+        picked[slot][color] += items;
+        size += items;
+    }
+}
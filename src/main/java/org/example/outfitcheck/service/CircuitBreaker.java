@@ -0,0 +1,51 @@
+package org.example.outfitcheck.service;
+
+/**
+ * Fails fast while a downstream is down. After {@code failureThreshold} failures in a row the
+ * breaker opens and refuses calls for {@code openMillis}; then a single trial call is let through,
+ * which closes the breaker on success and opens it again on failure.
+ */
+final class CircuitBreaker {
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+    private int consecutiveFailures;
+    /** When the breaker may let a trial call through; 0 while closed. */
+    private long openUntil;
+    private boolean trialInFlight;
+
+    CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /** Whether a call may go out now; every allowed call must be followed by a success or a failure. */
+    synchronized boolean allowRequest() {
+        if (openUntil == 0) return true;
+        if (trialInFlight || System.currentTimeMillis() < openUntil) return false;
+        trialInFlight = true;
+        return true;
+    }
+
+    synchronized void recordSuccess() {
+        if (openUntil != 0) {
+            System.out.println("✅ " + name + " raspunde din nou");
+        }
+        consecutiveFailures = 0;
+        openUntil = 0;
+        trialInFlight = false;
+    }
+
+    synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (trialInFlight || consecutiveFailures >= failureThreshold) {
+            if (openUntil == 0) {
+                System.err.println("❌ " + name + " nu raspunde, apelurile sunt oprite " + openMillis + " ms");
+            }
+            openUntil = System.currentTimeMillis() + openMillis;
+            trialInFlight = false;
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.example.outfitcheck.dto.ColorInfo;
 import org.example.outfitcheck.dto.VisionAnalysisResponse;
 import org.example.outfitcheck.entity.*;
 import org.example.outfitcheck.repository.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpStatus;
@@ -15,15 +16,18 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.*;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
 @Service
 public class ClothingItemService {
@@ -34,24 +38,32 @@ public class ClothingItemService {
 
     private final LoggedOutfitRepository loggedOutfitRepository;
     private final UserRepository userRepository;
-    private final VisionService visionService;
     private final CategoryMapperService categoryMapperService;
     private final ColorMapperService colorMapperService;
     private final AsyncClothingService asyncClothingService;
+    private final ImageAnalysisCacheService imageAnalysisCacheService;
+    private final SidecarClient sidecarClient;
+    private final OutboundExecutors outboundExecutors;
+    private final ApplicationEventPublisher eventPublisher;
 
     public ClothingItemService(ClothingItemRepository clothingItemRepository,
                                ClothingCategoryRepository categoryRepository, OutfitRepository outfitRepository, LoggedOutfitRepository loggedOutfitRepository,
-                               UserRepository userRepository, VisionService visionService, CategoryMapperService categoryMapperService, ColorMapperService colorMapperService, AsyncClothingService asyncClothingService) {
+                               UserRepository userRepository, CategoryMapperService categoryMapperService, ColorMapperService colorMapperService, AsyncClothingService asyncClothingService,
+                               ImageAnalysisCacheService imageAnalysisCacheService, SidecarClient sidecarClient,
+                               OutboundExecutors outboundExecutors, ApplicationEventPublisher eventPublisher) {
         this.clothingItemRepository = clothingItemRepository;
         this.categoryRepository = categoryRepository;
         this.outfitRepository = outfitRepository;
         this.loggedOutfitRepository = loggedOutfitRepository;
         this.userRepository = userRepository;
-        this.visionService = visionService;
         this.categoryMapperService = categoryMapperService;
 
         this.colorMapperService = colorMapperService;
         this.asyncClothingService = asyncClothingService;
+        this.imageAnalysisCacheService = imageAnalysisCacheService;
+        this.sidecarClient = sidecarClient;
+        this.outboundExecutors = outboundExecutors;
+        this.eventPublisher = eventPublisher;
     }
     public ClothingItem addClothingItemWithImageUrl(Long userId, Long categoryId, String baseColor, String brand, String imageUrl, String link, List<String> careSymbols, String articleType, String season, String usage) {
         Optional<ClothingCategory> categoryOpt = categoryRepository.findById(categoryId);
@@ -80,62 +92,39 @@ public class ClothingItemService {
         System.out.println("❌ Path-ul catre fisier: " + imageUrl);
         clothingItem.setImageUrl(saveClothingItemImage(clothingItem.getId(),imageUrl));
 
-        return clothingItemRepository.save(clothingItem);
+        clothingItem = clothingItemRepository.save(clothingItem);
+        eventPublisher.publishEvent(new WardrobeChangedEvent(userId, clothingItem.getId(), WardrobeChangedEvent.Change.ADDED));
+        return clothingItem;
     }
 
     public List<ClothingItem> getClothingItemsByIds(List<Long> ids) {
         return clothingItemRepository.findAllById(ids);
     }
 
-    public void sendToFlaskRemoveBg(String localPath) {
+    /** Replaces the image with its background-free version; false when that failed and the image is unchanged. */
+    public boolean sendToFlaskRemoveBg(String localPath) {
         File file = new File(localPath);
         if (!file.exists()) {
             System.out.println("❌ Fișierul nu există: " + localPath);
-            return;
+            return false;
         }
 
         try {
-            String boundary = "----WebKitFormBoundary" + System.currentTimeMillis();
-            URL url = new URL("http://127.0.0.1:5000/remove_bg");
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-
-            connection.setDoOutput(true);
-            connection.setRequestMethod("POST");
-            connection.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + boundary);
-
-            try (DataOutputStream request = new DataOutputStream(connection.getOutputStream())) {
-                // Scrie începutul multipart
-                request.writeBytes("--" + boundary + "\r\n");
-                request.writeBytes("Content-Disposition: form-data; name=\"image\"; filename=\"" + file.getName() + "\"\r\n");
-                request.writeBytes("Content-Type: image/webp\r\n\r\n");
-                Files.copy(file.toPath(), request);
-                request.writeBytes("\r\n--" + boundary + "--\r\n");
-                request.flush();
-            }
-
-            int responseCode = connection.getResponseCode();
-            if (responseCode == 200) {
-                System.out.println("✅ BG removed. Overwriting file...");
-
-                // Suprascrie fișierul original cu răspunsul (imaginea fără background)
-                try (InputStream in = connection.getInputStream();
-                     FileOutputStream out = new FileOutputStream(file)) {
-                    byte[] buffer = new byte[8192];
-                    int bytesRead;
-                    while ((bytesRead = in.read(buffer)) != -1) {
-                        out.write(buffer, 0, bytesRead);
-                    }
-                }
-
-            } else {
-                System.out.println("❌ Server returned error code: " + responseCode);
+            byte[] withoutBackground = sidecarClient.postImage(
+                    SidecarClient.Sidecar.BACKGROUND_REMOVER, "/remove_bg", file, byte[].class);
+            if (withoutBackground == null || withoutBackground.length == 0) {
+                System.out.println("❌ remove_bg a raspuns fara imagine");
+                return false;
             }
+            System.out.println("✅ BG removed. Overwriting file...");
 
-            connection.disconnect();
+            // Suprascrie fișierul original cu răspunsul (imaginea fără background)
+            Files.write(file.toPath(), withoutBackground);
+            return true;
 
-        } catch (IOException e) {
-            System.out.println("💥 Eroare la sendToFlaskRemoveBg:");
-            e.printStackTrace();
+        } catch (Exception e) {
+            System.out.println("💥 Eroare la sendToFlaskRemoveBg: " + e.getMessage());
+            return false;
         }
     }
 
@@ -165,61 +154,100 @@ public class ClothingItemService {
                 throw new RuntimeException("Fișierul este gol");
             }
 
-            String fileName = "temp_" + UUID.randomUUID() + ".webp";
-            Path uploadPath = Paths.get("uploads/clothing");
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
+            StoredImage stored;
+            try (InputStream in = file.getInputStream()) {
+                stored = storeTemporaryImage(in);
             }
+            String fileName = stored.fileName();
+            Path filePath = temporaryImagePath(fileName);
 
-            Path filePath = uploadPath.resolve(fileName);
-            Files.write(filePath, file.getBytes());
+            // aceeasi poza incarcata din nou: fara apeluri externe
+            VisionAnalysisResponse cached = imageAnalysisCacheService.lookup(stored.contentHash(), fileName);
+            if (cached != null) {
+                return cached;
+            }
 
-            sendToFlaskRemoveBg(filePath.toString());
+            boolean backgroundRemoved = outboundExecutors.supply(OutboundExecutors.Downstream.REMOVE_BG,
+                    () -> sendToFlaskRemoveBg(filePath.toString())).join();
 
             // 🔥 Trimitere în paralel
-            CompletableFuture<Map<String, Object>> visionFuture = CompletableFuture.supplyAsync(() ->
-                    {
-                        try {
-                            return visionService.detectLabelsAndColorsFromFilename(fileName);
-                        } catch (Exception e) {
-                            throw new RuntimeException(e);
-                        }
-                    }
-            );
+            CompletableFuture<Map<String, Object>> visionFuture = asyncClothingService.analyzeWithGoogleVisionAsync(filePath.toFile());
 
             CompletableFuture<Map<String, String>> flaskFuture = asyncClothingService.callFlaskClassifierAsync(filePath.toFile());
 
             // Așteaptă ambele
             CompletableFuture.allOf(visionFuture, flaskFuture).join();
 
-            Map<String, Object> visionData = visionFuture.get();
-            Map<String, String> aiData = flaskFuture.get();
-
-            List<String> labels = (List<String>) visionData.get("objects");
-            List<String> colors = (List<String>) visionData.get("colors");
-            String brand = (String) visionData.get("brand");
-
-            String suggestedCategory = categoryMapperService.mapLabelToCategory(labels);
-            List<ColorInfo> topColors = colorMapperService.mapAndGroupColors(colors);
-
-            VisionAnalysisResponse response = new VisionAnalysisResponse();
-            response.setFileName(fileName);
-            response.setSuggestedCategory(suggestedCategory);
-            response.setTopColors(topColors);
-            response.setBrand(brand);
-            response.setSubCategory(aiData.get("subCategory"));
-            response.setArticleType(aiData.get("articleType"));
-            response.setBaseColour(aiData.get("baseColour"));
-            response.setSeason(aiData.get("season"));
-            response.setUsage(aiData.get("usage"));
-
+            VisionAnalysisResponse response = toAnalysisResponse(fileName, visionFuture.get(), flaskFuture.get());
+            if (backgroundRemoved) {
+                imageAnalysisCacheService.store(stored.contentHash(), response);
+            }
             return response;
 
+        } catch (ResponseStatusException e) {
+            // un serviciu extern ocupat sau oprit: 503, nu 500
+            throw e;
+        } catch (CompletionException | ExecutionException e) {
+            if (e.getCause() instanceof ResponseStatusException status) {
+                throw status;
+            }
+            throw new RuntimeException("Eroare la analiza imaginii", e.getCause());
         } catch (Exception e) {
             throw new RuntimeException("Eroare la analiza imaginii", e);
         }
     }
 
+    /** A temporary image and the SHA-256 of its bytes, in hex. */
+    public record StoredImage(String fileName, String contentHash) {
+    }
+
+    /** Writes an uploaded image under a new temporary name, hashing it on the way. */
+    public StoredImage storeTemporaryImage(InputStream image) throws IOException {
+        String fileName = "temp_" + UUID.randomUUID() + ".webp";
+        Path uploadPath = Paths.get("uploads/clothing");
+        if (!Files.exists(uploadPath)) {
+            Files.createDirectories(uploadPath);
+        }
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (DigestInputStream in = new DigestInputStream(image, digest)) {
+            Files.copy(in, uploadPath.resolve(fileName));
+        }
+        return new StoredImage(fileName, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    public Path temporaryImagePath(String fileName) {
+        return Paths.get("uploads/clothing").resolve(fileName);
+    }
+
+    /** Maps the raw Vision and classifier results of a temporary image to the suggestion sent to the client. */
+    @SuppressWarnings("unchecked")
+    public VisionAnalysisResponse toAnalysisResponse(String fileName, Map<String, Object> visionData, Map<String, String> aiData) {
+        List<String> labels = (List<String>) visionData.get("objects");
+        List<String> colors = (List<String>) visionData.get("colors");
+        String brand = (String) visionData.get("brand");
+
+        String suggestedCategory = categoryMapperService.mapLabelToCategory(labels);
+        List<ColorInfo> topColors = colorMapperService.mapAndGroupColors(colors);
+
+        VisionAnalysisResponse response = new VisionAnalysisResponse();
+        response.setFileName(fileName);
+        response.setSuggestedCategory(suggestedCategory);
+        response.setTopColors(topColors);
+        response.setBrand(brand);
+        response.setSubCategory(aiData.get("subCategory"));
+        response.setArticleType(aiData.get("articleType"));
+        response.setBaseColour(aiData.get("baseColour"));
+        response.setSeason(aiData.get("season"));
+        response.setUsage(aiData.get("usage"));
+
+        return response;
+    }
+
 
 
 
@@ -251,8 +279,10 @@ public class ClothingItemService {
     }
 
     public boolean deleteClothingItem(Long id) {
-        if (clothingItemRepository.existsById(id)) {
-            clothingItemRepository.deleteById(id);
+        Optional<ClothingItem> item = clothingItemRepository.findById(id);
+        if (item.isPresent()) {
+            clothingItemRepository.delete(item.get());
+            publishChange(item.get(), WardrobeChangedEvent.Change.DELETED);
             return true;
         }
         return false;
@@ -265,7 +295,15 @@ public class ClothingItemService {
 
         item.setInLaundry(!item.isInLaundry());
         // save() e opțional aici, dar îl folosim ca să fim siguri că persistă
-        return clothingItemRepository.save(item);
+        ClothingItem saved = clothingItemRepository.save(item);
+        publishChange(saved, WardrobeChangedEvent.Change.LAUNDRY_TOGGLED);
+        return saved;
+    }
+
+    private void publishChange(ClothingItem item, WardrobeChangedEvent.Change change) {
+        if (item.getOwner() != null) {
+            eventPublisher.publishEvent(new WardrobeChangedEvent(item.getOwner().getId(), item.getId(), change));
+        }
     }
 
     public LocalDate getLastUsedDate(Long clothingItemId) {
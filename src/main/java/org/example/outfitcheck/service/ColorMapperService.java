@@ -8,35 +8,37 @@ import java.util.*;
 @Service
 public class ColorMapperService {
 
-    private static final Map<String, String> STANDARD_COLORS = Map.ofEntries(
-            Map.entry("Black", "#000000"),
-            Map.entry("White", "#FFFFFF"),
-            Map.entry("Red", "#FF0000"),
-            Map.entry("Yellow", "#FFFF00"),
-            Map.entry("Blue", "#0000FF"),
-            Map.entry("Green", "#008000"),
-            Map.entry("Orange", "#FFA500"),
-            Map.entry("Pink", "#FFC0CB"),
-            Map.entry("Brown", "#A52A2A"),
-            Map.entry("Gray", "#808080"),
-            Map.entry("Purple", "#800080"),
-            Map.entry("Beige", "#F5F5DC")
+    private static final List<String> STANDARD_COLORS = List.of(
+            "Black", "White", "Red", "Yellow", "Blue", "Green",
+            "Orange", "Pink", "Brown", "Gray", "Purple", "Beige"
     );
 
     private static final Set<String> PRIORITY_COLORS = Set.of("Black", "White", "Red", "Yellow", "Blue");
 
+    /** ΔE under which a priority color wins outright (about the old RGB distance of 80). */
+    private static final double PRIORITY_DELTA_E = 15;
+
+    private final ColorSpaceService colorSpaceService;
+    private final double[][] standardLabs;
+
+    public ColorMapperService(ColorSpaceService colorSpaceService) {
+        this.colorSpaceService = colorSpaceService;
+        this.standardLabs = STANDARD_COLORS.stream()
+                .map(name -> colorSpaceService.labOf(colorSpaceService.ordinalOf(name)))
+                .toArray(double[][]::new);
+    }
+
     public String mapHexToNearestColorName(String hex) {
-        int[] targetRGB = hexToRGB(hex);
+        double[] targetLab = ColorSpaceService.toLab(hexToRGB(hex));
         String nearestColor = hex;
         double minDistance = Double.MAX_VALUE;
 
-        for (Map.Entry<String, String> entry : STANDARD_COLORS.entrySet()) {
-            String colorName = entry.getKey();
-            int[] rgb = hexToRGB(entry.getValue());
-            double distance = colorDistance(targetRGB, rgb);
+        for (int i = 0; i < STANDARD_COLORS.size(); i++) {
+            String colorName = STANDARD_COLORS.get(i);
+            double distance = ColorSpaceService.deltaE(targetLab, standardLabs[i]);
 
             // Bias pozitiv: favorizează culorile prioritare dacă sunt aproape
-            if (PRIORITY_COLORS.contains(colorName) && distance < 80) {
+            if (PRIORITY_COLORS.contains(colorName) && distance < PRIORITY_DELTA_E) {
                 return colorName;
             }
 
@@ -56,24 +58,15 @@ public class ColorMapperService {
 
 
     public String getStandardHex(String colorName) {
-        return STANDARD_COLORS.getOrDefault(colorName, "#999999");
+        if (!STANDARD_COLORS.contains(colorName)) {
+            return "#999999";
+        }
+        return colorSpaceService.hexOf(colorSpaceService.ordinalOf(colorName));
     }
 
-    private int[] hexToRGB(String hex) {
+    private int hexToRGB(String hex) {
         hex = hex.replace("#", "");
-        return new int[]{
-                Integer.parseInt(hex.substring(0, 2), 16),
-                Integer.parseInt(hex.substring(2, 4), 16),
-                Integer.parseInt(hex.substring(4, 6), 16)
-        };
-    }
-
-    private double colorDistance(int[] rgb1, int[] rgb2) {
-        return Math.sqrt(
-                Math.pow(rgb1[0] - rgb2[0], 2) +
-                        Math.pow(rgb1[1] - rgb2[1], 2) +
-                        Math.pow(rgb1[2] - rgb2[2], 2)
-        );
+        return Integer.parseInt(hex.substring(0, 6), 16);
     }
 
     public List<ColorInfo> mapAndGroupColors(List<String> hexColors) {
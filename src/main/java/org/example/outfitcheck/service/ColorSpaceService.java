@@ -0,0 +1,194 @@
+package org.example.outfitcheck.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Named color palette shared by the outfit generator and the color mapper.
+ *
+ * Every palette color gets an ordinal; the CIELAB ΔE (CIEDE2000) distance between all pairs is
+ * computed once at startup into a dense symmetric matrix, so comparing two named colors is a
+ * single array read. Names outside the palette resolve to {@link #unknownOrdinal()}, whose
+ * distance to anything is the mean distance of the palette instead of an arbitrary constant.
+ */
+@Service
+public class ColorSpaceService {
+
+    private static final String[][] PALETTE = {
+            {"Black",      "#000000"},
+            {"White",      "#FFFFFF"},
+            {"Red",        "#FF0000"},
+            {"Yellow",     "#FFFF00"},
+            {"Blue",       "#0000FF"},
+            {"Green",      "#008000"},
+            {"Orange",     "#FFA500"},
+            {"Pink",       "#FFC0CB"},
+            {"Brown",      "#A52A2A"},
+            {"Gray",       "#808080"},
+            {"Purple",     "#800080"},
+            {"Beige",      "#F5F5DC"},
+            {"Dark Red",   "#8B0000"},
+            {"Light Blue", "#ADD8E6"},
+            {"Dark Green", "#006400"},
+            {"Light Gray", "#D3D3D3"},
+            {"Dark Gray",  "#505050"}
+    };
+
+    private static final double POW_25_7 = Math.pow(25, 7);
+
+    private final int size;
+    private final String[] names;
+    private final String[] hexes;
+    private final double[][] labs;
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    /** (size + 1) x (size + 1), the last row/column belongs to the unknown color. */
+    private final double[] distances;
+
+    public ColorSpaceService() {
+        size = PALETTE.length;
+        names = new String[size];
+        hexes = new String[size];
+        labs = new double[size][];
+        for (int i = 0; i < size; i++) {
+            names[i] = PALETTE[i][0];
+            hexes[i] = PALETTE[i][1];
+            labs[i] = toLab(Integer.parseInt(hexes[i].substring(1), 16));
+            ordinals.put(names[i].toLowerCase(Locale.ROOT), i);
+        }
+
+        int stride = size + 1;
+        distances = new double[stride * stride];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                double d = deltaE(labs[i], labs[j]);
+                distances[i * stride + j] = d;
+                distances[j * stride + i] = d;
+                sum += 2 * d;
+            }
+        }
+        double unknown = sum / ((double) size * (size - 1));
+        for (int i = 0; i < stride; i++) {
+            distances[i * stride + size] = unknown;
+            distances[size * stride + i] = unknown;
+        }
+    }
+
+    public int paletteSize() {
+        return size;
+    }
+
+    public int unknownOrdinal() {
+        return size;
+    }
+
+    /** Palette ordinal of a color name (case-insensitive), or {@link #unknownOrdinal()}. */
+    public int ordinalOf(String name) {
+        if (name == null) return size;
+        return ordinals.getOrDefault(name.trim().toLowerCase(Locale.ROOT), size);
+    }
+
+    public String nameOf(int ordinal) {
+        return ordinal < size ? names[ordinal] : null;
+    }
+
+    public String hexOf(int ordinal) {
+        return ordinal < size ? hexes[ordinal] : null;
+    }
+
+    public double[] labOf(int ordinal) {
+        return ordinal < size ? labs[ordinal].clone() : null;
+    }
+
+    /** ΔE between two palette ordinals. */
+    public double distance(int a, int b) {
+        return distances[a * (size + 1) + b];
+    }
+
+    /** sRGB (0xRRGGBB) to CIELAB under the D65 white point. */
+    public static double[] toLab(int rgb) {
+        double r = linear(((rgb >> 16) & 0xFF) / 255.0);
+        double g = linear(((rgb >> 8) & 0xFF) / 255.0);
+        double b = linear((rgb & 0xFF) / 255.0);
+
+        double x = (0.4124 * r + 0.3576 * g + 0.1805 * b) / 0.95047;
+        double y = 0.2126 * r + 0.7152 * g + 0.0722 * b;
+        double z = (0.0193 * r + 0.1192 * g + 0.9505 * b) / 1.08883;
+
+        double fx = labF(x);
+        double fy = labF(y);
+        double fz = labF(z);
+        return new double[]{116 * fy - 16, 500 * (fx - fy), 200 * (fy - fz)};
+    }
+
+    /** CIEDE2000 color difference (kL = kC = kH = 1). */
+    public static double deltaE(double[] lab1, double[] lab2) {
+        double l1 = lab1[0], a1 = lab1[1], b1 = lab1[2];
+        double l2 = lab2[0], a2 = lab2[1], b2 = lab2[2];
+
+        double c1 = Math.hypot(a1, b1);
+        double c2 = Math.hypot(a2, b2);
+        double cMean7 = Math.pow((c1 + c2) / 2, 7);
+        double g = 0.5 * (1 - Math.sqrt(cMean7 / (cMean7 + POW_25_7)));
+
+        double a1p = (1 + g) * a1;
+        double a2p = (1 + g) * a2;
+        double c1p = Math.hypot(a1p, b1);
+        double c2p = Math.hypot(a2p, b2);
+        double h1p = hueAngle(a1p, b1);
+        double h2p = hueAngle(a2p, b2);
+
+        double dLp = l2 - l1;
+        double dCp = c2p - c1p;
+        double dhp = 0;
+        if (c1p * c2p != 0) {
+            dhp = h2p - h1p;
+            if (dhp > 180) dhp -= 360;
+            else if (dhp < -180) dhp += 360;
+        }
+        double dHp = 2 * Math.sqrt(c1p * c2p) * Math.sin(Math.toRadians(dhp / 2));
+
+        double lMean = (l1 + l2) / 2;
+        double cpMean = (c1p + c2p) / 2;
+        double hpMean = h1p + h2p;
+        if (c1p * c2p != 0) {
+            hpMean = Math.abs(h1p - h2p) <= 180 ? hpMean / 2
+                    : (hpMean < 360 ? (hpMean + 360) / 2 : (hpMean - 360) / 2);
+        }
+
+        double t = 1
+                - 0.17 * Math.cos(Math.toRadians(hpMean - 30))
+                + 0.24 * Math.cos(Math.toRadians(2 * hpMean))
+                + 0.32 * Math.cos(Math.toRadians(3 * hpMean + 6))
+                - 0.20 * Math.cos(Math.toRadians(4 * hpMean - 63));
+        double lMean50 = (lMean - 50) * (lMean - 50);
+        double sl = 1 + 0.015 * lMean50 / Math.sqrt(20 + lMean50);
+        double sc = 1 + 0.045 * cpMean;
+        double sh = 1 + 0.015 * cpMean * t;
+        double cpMean7 = Math.pow(cpMean, 7);
+        double rt = -2 * Math.sqrt(cpMean7 / (cpMean7 + POW_25_7))
+                * Math.sin(Math.toRadians(60 * Math.exp(-Math.pow((hpMean - 275) / 25, 2))));
+
+        double dl = dLp / sl;
+        double dc = dCp / sc;
+        double dh = dHp / sh;
+        return Math.sqrt(dl * dl + dc * dc + dh * dh + rt * dc * dh);
+    }
+
+    private static double hueAngle(double a, double b) {
+        if (a == 0 && b == 0) return 0;
+        double h = Math.toDegrees(Math.atan2(b, a));
+        return h < 0 ? h + 360 : h;
+    }
+
+    private static double linear(double channel) {
+        return channel <= 0.04045 ? channel / 12.92 : Math.pow((channel + 0.055) / 1.055, 2.4);
+    }
+
+    private static double labF(double t) {
+        return t > 216.0 / 24389.0 ? Math.cbrt(t) : (24389.0 / 27.0 * t + 16) / 116;
+    }
+}
@@ -0,0 +1,148 @@
+package org.example.outfitcheck.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.outfitcheck.entity.BatchJobCheckpoint;
+import org.example.outfitcheck.repository.BatchJobCheckpointRepository;
+import org.example.outfitcheck.repository.ClothingItemRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Nightly precomputation of the outfit of the day (see {@link DailyOutfitService}) for every user
+ * with an available item.
+ *
+ * Users are read in keyset pages by id, so memory stays bounded by the page size. A page is split
+ * into partitions that run in parallel on a fixed pool; once the whole page is done the last user
+ * id is saved as the checkpoint. A node restarted mid-run resumes after the checkpoint, and users
+ * of a half-done page that already have their row are skipped.
+ */
+@Service
+public class DailyOutfitJob {
+
+    static final String JOB_NAME = "daily-outfit";
+
+    private final ClothingItemRepository clothingItemRepository;
+    private final BatchJobCheckpointRepository checkpointRepository;
+    private final DailyOutfitService dailyOutfitService;
+    private final int pageSize;
+    private final int partitionSize;
+    private final int threads;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private ExecutorService executor;
+
+    public DailyOutfitJob(ClothingItemRepository clothingItemRepository,
+                          BatchJobCheckpointRepository checkpointRepository,
+                          DailyOutfitService dailyOutfitService,
+                          @Value("${outfit.daily.page-size:500}") int pageSize,
+                          @Value("${outfit.daily.partition-size:50}") int partitionSize,
+                          @Value("${outfit.daily.threads:2}") int threads) {
+        this.clothingItemRepository = clothingItemRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.dailyOutfitService = dailyOutfitService;
+        this.pageSize = pageSize;
+        this.partitionSize = partitionSize;
+        this.threads = threads;
+    }
+
+    @PostConstruct
+    public void startExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread worker = new Thread(task, "daily-outfit-" + counter.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        });
+    }
+
+    @PreDestroy
+    public void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Scheduled(cron = "${outfit.daily.cron:0 0 4 * * *}")
+    public void runNightly() {
+        run(LocalDate.now());
+    }
+
+    /** Finishes today's run if the node went down in the middle of it. */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedRun() {
+        LocalDate today = LocalDate.now();
+        checkpointRepository.findById(JOB_NAME)
+                .filter(checkpoint -> checkpoint.getRunDate().equals(today) && !checkpoint.isCompleted())
+                .ifPresent(checkpoint -> run(today));
+    }
+
+    /** Precomputes the outfits of {@code date}; a no-op while a run is in progress or once the day is done. */
+    public void run(LocalDate date) {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            BatchJobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME)
+                    .filter(existing -> existing.getRunDate().equals(date))
+                    .orElseGet(() -> new BatchJobCheckpoint(JOB_NAME, date, 0L, false, LocalDateTime.now()));
+            if (checkpoint.isCompleted()) {
+                return;
+            }
+            System.out.println("Daily outfits for " + date + ": starting after user " + checkpoint.getLastKey());
+
+            while (true) {
+                List<Long> userIds = clothingItemRepository.findOwnerIdsAfter(
+                        checkpoint.getLastKey(), PageRequest.of(0, pageSize));
+                if (userIds.isEmpty()) {
+                    break;
+                }
+                executor.invokeAll(partitions(userIds, date));
+                checkpoint.setLastKey(userIds.get(userIds.size() - 1));
+                checkpoint.setUpdatedAt(LocalDateTime.now());
+                checkpointRepository.save(checkpoint);
+            }
+
+            checkpoint.setCompleted(true);
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            checkpointRepository.save(checkpoint);
+            System.out.println("Daily outfits for " + date + ": done");
+        } catch (InterruptedException e) {
+            // oprire in timpul rularii; se reia de la checkpoint
+            Thread.currentThread().interrupt();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private List<Callable<Void>> partitions(List<Long> userIds, LocalDate date) {
+        List<Callable<Void>> partitions = new ArrayList<>();
+        for (int from = 0; from < userIds.size(); from += partitionSize) {
+            List<Long> partition = userIds.subList(from, Math.min(userIds.size(), from + partitionSize));
+            partitions.add(() -> {
+                for (Long userId : partition) {
+                    try {
+                        dailyOutfitService.precompute(userId, date);
+                    } catch (RuntimeException e) {
+                        System.err.println("Daily outfit failed for user " + userId + ": " + e.getMessage());
+                    }
+                }
+                return null;
+            });
+        }
+        return partitions;
+    }
+}
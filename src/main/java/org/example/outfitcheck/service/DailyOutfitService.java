@@ -0,0 +1,121 @@
+package org.example.outfitcheck.service;
+
+import org.example.outfitcheck.dto.OutfitSuggestionDTO;
+import org.example.outfitcheck.entity.DailyOutfitSuggestion;
+import org.example.outfitcheck.repository.DailyOutfitSuggestionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The "outfit of the day" shown on the home screen. {@link DailyOutfitJob} precomputes it for
+ * every user overnight, so opening the app reads one row instead of running the generator; a
+ * user the job did not reach gets it generated (and stored) on first read. Any change to the
+ * wardrobe or the wear history drops today's row, so the next read generates it again from the
+ * current wardrobe.
+ */
+@Service
+public class DailyOutfitService {
+
+    private final OutfitGeneratorService outfitGeneratorService;
+    private final DailyOutfitSuggestionRepository dailyOutfitSuggestionRepository;
+    private final String context;
+    private final String season;
+
+    public DailyOutfitService(OutfitGeneratorService outfitGeneratorService,
+                              DailyOutfitSuggestionRepository dailyOutfitSuggestionRepository,
+                              @Value("${outfit.daily.context:Casual}") String context,
+                              @Value("${outfit.daily.season:}") String season) {
+        this.outfitGeneratorService = outfitGeneratorService;
+        this.dailyOutfitSuggestionRepository = dailyOutfitSuggestionRepository;
+        this.context = context;
+        this.season = season;
+    }
+
+    /** Today's outfit of the user, or null when the wardrobe allows none. */
+    public OutfitSuggestionDTO getOutfitOfTheDay(Long userId) {
+        LocalDate today = LocalDate.now();
+        DailyOutfitSuggestion stored = dailyOutfitSuggestionRepository.findByUserIdAndDate(userId, today)
+                .orElseGet(() -> precompute(userId, today));
+        return toDTO(stored);
+    }
+
+    // REQUIRES_NEW: after the commit the publisher's transaction can no longer take the delete
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onWardrobeChanged(WardrobeChangedEvent event) {
+        dailyOutfitSuggestionRepository.findByUserIdAndDate(event.userId(), LocalDate.now())
+                .ifPresent(dailyOutfitSuggestionRepository::delete);
+    }
+
+    /**
+     * Generates and stores the user's outfit for {@code date}, unless it is already stored. The
+     * generator's caches are bypassed, since the nightly run reaches every user once.
+     */
+    DailyOutfitSuggestion precompute(Long userId, LocalDate date) {
+        DailyOutfitSuggestion existing = dailyOutfitSuggestionRepository.findByUserIdAndDate(userId, date).orElse(null);
+        if (existing != null) {
+            return existing;
+        }
+
+        String dailySeason = season.isBlank() ? seasonOf(date) : season;
+        boolean cold = dailySeason.equalsIgnoreCase("Fall") || dailySeason.equalsIgnoreCase("Winter");
+        List<OutfitSuggestionDTO> outfits = outfitGeneratorService.generateOutfitsUncached(
+                userId, context, dailySeason,
+                false, cold,
+                1, false
+        );
+
+        DailyOutfitSuggestion row = new DailyOutfitSuggestion();
+        row.setUserId(userId);
+        row.setDate(date);
+        row.setContext(context);
+        row.setSeason(dailySeason);
+        row.setGeneratedAt(LocalDateTime.now());
+        if (!outfits.isEmpty()) {
+            OutfitSuggestionDTO best = outfits.get(0);
+            row.setTop1Id(best.getTop1Id());
+            row.setTop2Id(best.getTop2Id());
+            row.setBottomId(best.getBottomId());
+            row.setFootwearId(best.getFootwearId());
+            row.setOuterwearId(best.getOuterwearId());
+            row.setHeadwearId(best.getHeadwearId());
+            row.setFullBodywearId(best.getFullBodywearId());
+            row.setScore(best.getScore());
+        }
+        try {
+            return dailyOutfitSuggestionRepository.save(row);
+        } catch (DataIntegrityViolationException e) {
+            // stored meanwhile by the job or another request
+            return dailyOutfitSuggestionRepository.findByUserIdAndDate(userId, date).orElseThrow(() -> e);
+        }
+    }
+
+    static String seasonOf(LocalDate date) {
+        switch (date.getMonth()) {
+            case DECEMBER: case JANUARY: case FEBRUARY:
+                return "Winter";
+            case MARCH: case APRIL: case MAY:
+                return "Spring";
+            case JUNE: case JULY: case AUGUST:
+                return "Summer";
+            default:
+                return "Fall";
+        }
+    }
+
+    private static OutfitSuggestionDTO toDTO(DailyOutfitSuggestion row) {
+        if (row.getTop1Id() == null && row.getFullBodywearId() == null) {
+            return null;
+        }
+        return new OutfitSuggestionDTO(row.getTop1Id(), row.getTop2Id(), row.getBottomId(), row.getFootwearId(),
+                row.getOuterwearId(), row.getHeadwearId(), row.getFullBodywearId(), row.getScore());
+    }
+}
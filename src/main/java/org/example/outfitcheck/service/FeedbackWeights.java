@@ -0,0 +1,68 @@
+package org.example.outfitcheck.service;
+
+/**
+ * Per-user weights learned from accepted and rejected suggestions, over features the generator
+ * already has: item usage, item season, item slot and the color pair of two items worn together.
+ * Kept as small float vectors indexed by the ordinals of {@link WardrobeFeatures} and
+ * {@link ColorSpaceService}; an event touches only the entries of the outfit's own items.
+ *
+ * Not thread-safe; {@link OutfitFeedbackService} guards every instance.
+ */
+final class FeedbackWeights {
+
+    final float[] usage = new float[WardrobeFeatures.KNOWN_USAGES.length];
+    final float[] season = new float[WardrobeFeatures.WINTER + 1];
+    final float[] slot = new float[WardrobeFeatures.OTHER_SLOT];
+    /** Symmetric, (palette + 1)² like the ΔE matrix; a positive weight lowers the color penalty. */
+    final float[] colorPair;
+    final int colorStride;
+    /** Set by the owner on every change, see {@link OutfitFeedbackService#version}. */
+    long version;
+
+    FeedbackWeights(int colorStride) {
+        this.colorStride = colorStride;
+        this.colorPair = new float[colorStride * colorStride];
+    }
+
+    /**
+     * Moves the weight of every feature of the outfit by {@code delta} (positive on accept,
+     * negative on reject), each weight staying within ±{@code limit}.
+     *
+     * @param items wardrobe indices of the outfit's items
+     */
+    void learn(WardrobeFeatures wardrobe, int[] items, float delta, float limit) {
+        for (int a = 0; a < items.length; a++) {
+            int i = items[a];
+            if (wardrobe.usage[i] >= 0 && wardrobe.usage[i] < usage.length) {
+                usage[wardrobe.usage[i]] = clamp(usage[wardrobe.usage[i]] + delta, limit);
+            }
+            if (wardrobe.season[i] >= 0 && wardrobe.season[i] < season.length) {
+                season[wardrobe.season[i]] = clamp(season[wardrobe.season[i]] + delta, limit);
+            }
+            if (wardrobe.slot[i] < slot.length) {
+                slot[wardrobe.slot[i]] = clamp(slot[wardrobe.slot[i]] + delta, limit);
+            }
+            for (int b = a + 1; b < items.length; b++) {
+                int first = wardrobe.color[i];
+                int second = wardrobe.color[items[b]];
+                float updated = clamp(colorPair[first * colorStride + second] + delta, limit);
+                colorPair[first * colorStride + second] = updated;
+                colorPair[second * colorStride + first] = updated;
+            }
+        }
+    }
+
+    FeedbackWeights copy() {
+        FeedbackWeights copy = new FeedbackWeights(colorStride);
+        System.arraycopy(usage, 0, copy.usage, 0, usage.length);
+        System.arraycopy(season, 0, copy.season, 0, season.length);
+        System.arraycopy(slot, 0, copy.slot, 0, slot.length);
+        System.arraycopy(colorPair, 0, copy.colorPair, 0, colorPair.length);
+        copy.version = version;
+        return copy;
+    }
+
+    private static float clamp(float value, float limit) {
+        return Math.max(-limit, Math.min(limit, value));
+    }
+}
@@ -1,14 +1,7 @@
 package org.example.outfitcheck.service;
 
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.File;
 import java.util.Map;
@@ -16,23 +9,19 @@ import java.util.Map;
 @Service
 public class FlaskClassifierService {
 
-    public Map<String, String> callFlaskClassifier(File file) {
-        try {
-            RestTemplate restTemplate = new RestTemplate();
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-
-            MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-            body.add("image", new FileSystemResource(file));
+    private final SidecarClient sidecarClient;
 
-            HttpEntity<MultiValueMap<String, Object>> request = new HttpEntity<>(body, headers);
-
-            ResponseEntity<Map> response = restTemplate.postForEntity(
-                    "http://localhost:5005/predict", request, Map.class
-            );
+    public FlaskClassifierService(SidecarClient sidecarClient) {
+        this.sidecarClient = sidecarClient;
+    }
 
-            return response.getBody();
+    @SuppressWarnings("unchecked")
+    public Map<String, String> callFlaskClassifier(File file) {
+        try {
+            return sidecarClient.postImage(SidecarClient.Sidecar.CLASSIFIER, "/predict", file, Map.class);
+        } catch (ResponseStatusException e) {
+            // clasificatorul e ocupat sau oprit: 503 pentru client
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Eroare la clasificare AI", e);
         }
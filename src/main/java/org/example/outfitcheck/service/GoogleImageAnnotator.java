@@ -0,0 +1,61 @@
+package org.example.outfitcheck.service;
+
+import com.google.api.gax.core.FixedCredentialsProvider;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.cloud.vision.v1.AnnotateImageRequest;
+import com.google.cloud.vision.v1.BatchAnnotateImagesResponse;
+import com.google.cloud.vision.v1.ImageAnnotatorClient;
+import com.google.cloud.vision.v1.ImageAnnotatorSettings;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Google Cloud Vision through one {@link ImageAnnotatorClient} for the whole application; the
+ * client holds a gRPC channel and is safe to share between threads. It is created on first use,
+ * so the application still starts when the credentials are missing, and closed on shutdown.
+ */
+@Service
+class GoogleImageAnnotator implements ImageAnnotator {
+
+    @Value("${google.cloud.credentials.location}")
+    private String credentialsPath;
+
+    private volatile ImageAnnotatorClient client;
+
+    @Override
+    public BatchAnnotateImagesResponse annotate(List<AnnotateImageRequest> requests) throws IOException {
+        return client().batchAnnotateImages(requests);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (client != null) {
+            client.close();
+            client = null;
+        }
+    }
+
+    private ImageAnnotatorClient client() throws IOException {
+        ImageAnnotatorClient current = client;
+        if (current != null) return current;
+        synchronized (this) {
+            if (client == null) {
+                GoogleCredentials credentials;
+                try (InputStream in = new FileInputStream(credentialsPath)) {
+                    credentials = GoogleCredentials.fromStream(in);
+                }
+                ImageAnnotatorSettings settings = ImageAnnotatorSettings.newBuilder()
+                        .setCredentialsProvider(FixedCredentialsProvider.create(credentials))
+                        .build();
+                client = ImageAnnotatorClient.create(settings);
+            }
+            return client;
+        }
+    }
+}
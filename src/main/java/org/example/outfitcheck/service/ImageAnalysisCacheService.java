@@ -0,0 +1,143 @@
+package org.example.outfitcheck.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.outfitcheck.dto.ColorInfo;
+import org.example.outfitcheck.dto.VisionAnalysisResponse;
+import org.example.outfitcheck.entity.ImageAnalysis;
+import org.example.outfitcheck.repository.ImageAnalysisRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Analyses of uploaded images by content hash, so uploading the same photo again skips background
+ * removal, Vision and the classifier. Each entry keeps the analysis in the database and the image
+ * without background under {@code uploads/clothing/analysis-cache}. Every {@code evict-interval-ms}
+ * the least recently used entries past {@code max-entries} are dropped, so an insert does not have
+ * to count the table.
+ *
+ * The cache is best effort: when it cannot be read or written the upload is analyzed as usual.
+ */
+@Service
+public class ImageAnalysisCacheService {
+
+    private static final Path UPLOADS_FOLDER = Paths.get("uploads/clothing");
+    private static final Path CACHE_FOLDER = UPLOADS_FOLDER.resolve("analysis-cache");
+
+    private final ImageAnalysisRepository imageAnalysisRepository;
+    private final int maxEntries;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public ImageAnalysisCacheService(ImageAnalysisRepository imageAnalysisRepository,
+                                     @Value("${outfit.image-cache.max-entries:5000}") int maxEntries,
+                                     MeterRegistry meterRegistry) {
+        this.imageAnalysisRepository = imageAnalysisRepository;
+        this.maxEntries = maxEntries;
+        this.hits = meterRegistry.counter("outfit.image-cache", "result", "hit");
+        this.misses = meterRegistry.counter("outfit.image-cache", "result", "miss");
+        this.evictions = meterRegistry.counter("outfit.image-cache.evictions");
+    }
+
+    /**
+     * The cached analysis of an upload, or null on a miss. On a hit the cached image without
+     * background replaces the upload's temporary file, as background removal would have done.
+     *
+     * @param fileName the upload's temporary file, also the file name of the returned analysis
+     */
+    public VisionAnalysisResponse lookup(String contentHash, String fileName) {
+        VisionAnalysisResponse response;
+        try {
+            ImageAnalysis analysis = imageAnalysisRepository.findWithColorsByContentHash(contentHash).orElse(null);
+            Path cachedImage = CACHE_FOLDER.resolve(contentHash + ".webp");
+            if (analysis == null || !Files.exists(cachedImage)) {
+                misses.increment();
+                return null;
+            }
+            Files.copy(cachedImage, UPLOADS_FOLDER.resolve(fileName), StandardCopyOption.REPLACE_EXISTING);
+            response = toResponse(analysis, fileName);
+        } catch (IOException | DataAccessException e) {
+            System.err.println("⚠️ Cache-ul de analiza a imaginilor nu a putut fi citit: " + e.getMessage());
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        try {
+            imageAnalysisRepository.touch(contentHash, LocalDateTime.now());
+        } catch (DataAccessException e) {
+            // only the eviction order suffers
+            System.err.println("⚠️ Folosirea analizei din cache nu a putut fi salvata: " + e.getMessage());
+        }
+        return response;
+    }
+
+    /**
+     * Caches the analysis of an upload whose temporary file no longer has a background. Not one
+     * transaction, so a concurrent upload of the same photo only makes the second save fail.
+     */
+    public void store(String contentHash, VisionAnalysisResponse response) {
+        try {
+            if (imageAnalysisRepository.existsById(contentHash)) return;
+            Files.createDirectories(CACHE_FOLDER);
+            Files.copy(UPLOADS_FOLDER.resolve(response.getFileName()), CACHE_FOLDER.resolve(contentHash + ".webp"),
+                    StandardCopyOption.REPLACE_EXISTING);
+            imageAnalysisRepository.save(toEntity(contentHash, response));
+        } catch (IOException | DataAccessException e) {
+            // e.g. the same photo stored meanwhile by a concurrent upload
+            System.err.println("⚠️ Analiza imaginii nu a putut fi pusa in cache: " + e.getMessage());
+        }
+    }
+
+    /** Drops the least recently used entries past {@code max-entries}. */
+    @Scheduled(fixedDelayString = "${outfit.image-cache.evict-interval-ms:600000}")
+    public void evictOverflow() {
+        try {
+            long overflow = imageAnalysisRepository.count() - maxEntries;
+            if (overflow <= 0) return;
+            List<String> evicted = imageAnalysisRepository.findLeastRecentlyUsed(
+                    PageRequest.of(0, (int) Math.min(overflow, Integer.MAX_VALUE)));
+            imageAnalysisRepository.deleteAllById(evicted);
+            for (String contentHash : evicted) {
+                Files.deleteIfExists(CACHE_FOLDER.resolve(contentHash + ".webp"));
+            }
+            evictions.increment(evicted.size());
+        } catch (IOException | DataAccessException e) {
+            System.err.println("⚠️ Cache-ul de analiza a imaginilor nu a putut fi curatat: " + e.getMessage());
+        }
+    }
+
+    private static VisionAnalysisResponse toResponse(ImageAnalysis analysis, String fileName) {
+        List<ColorInfo> topColors = new ArrayList<>();
+        for (ImageAnalysis.Color color : analysis.getTopColors()) {
+            topColors.add(new ColorInfo(color.getHex(), color.getName()));
+        }
+        return new VisionAnalysisResponse(fileName, analysis.getSuggestedCategory(), topColors, analysis.getBrand(),
+                analysis.getSubCategory(), analysis.getArticleType(), analysis.getBaseColour(),
+                analysis.getSeason(), analysis.getUsage());
+    }
+
+    private static ImageAnalysis toEntity(String contentHash, VisionAnalysisResponse response) {
+        List<ImageAnalysis.Color> topColors = new ArrayList<>();
+        if (response.getTopColors() != null) {
+            for (ColorInfo color : response.getTopColors()) {
+                topColors.add(new ImageAnalysis.Color(color.getHex(), color.getName()));
+            }
+        }
+        return new ImageAnalysis(contentHash, response.getSuggestedCategory(), topColors, response.getBrand(),
+                response.getSubCategory(), response.getArticleType(), response.getBaseColour(),
+                response.getSeason(), response.getUsage(), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.outfitcheck.service;
+
+import com.google.cloud.vision.v1.AnnotateImageRequest;
+import com.google.cloud.vision.v1.BatchAnnotateImagesResponse;
+
+import java.util.List;
+
+/** The Vision {@code batchAnnotateImages} call, so {@link VisionBatcher} does not depend on the gRPC client. */
+interface ImageAnnotator {
+
+    /** One response per request, in the same order. */
+    BatchAnnotateImagesResponse annotate(List<AnnotateImageRequest> requests) throws Exception;
+}
@@ -0,0 +1,284 @@
+package org.example.outfitcheck.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.outfitcheck.dto.ImageIngestionJobDTO;
+import org.example.outfitcheck.dto.VisionAnalysisResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Analysis of uploaded clothing images as background jobs, so an upload returns a job id right
+ * away instead of holding a request thread through background removal, Vision and the classifier.
+ *
+ * A job runs through the stages persist → remove-bg → {vision, classify} → map, the two analyses
+ * in parallel. Persist and map have their own fixed pools with bounded queues; the stages that
+ * call a downstream service run on its executor from {@link OutboundExecutors}, so a slow
+ * downstream backs up only its own stage. When the persist queue is full the upload is refused
+ * with 503; when a later queue is full the job fails. Finished jobs are kept for polling until they expire. An
+ * image analyzed before is answered from {@link ImageAnalysisCacheService} right after persist.
+ */
+@Service
+public class ImageIngestionService {
+
+    public enum Stage { QUEUED, PERSISTING, REMOVING_BACKGROUND, ANALYZING, MAPPING, DONE, FAILED }
+
+    static final class Job {
+        final String id;
+        final CompletableFuture<Job> finished = new CompletableFuture<>();
+        volatile Stage stage = Stage.QUEUED;
+        volatile VisionAnalysisResponse result;
+        volatile String error;
+        volatile long finishedAt;
+
+        Job(String id) {
+            this.id = id;
+        }
+
+        ImageIngestionJobDTO toDTO() {
+            return new ImageIngestionJobDTO(id, stage.name(), result, error);
+        }
+    }
+
+    /** The stored upload, and its cached analysis when the same image was analyzed before. */
+    private record Persisted(ClothingItemService.StoredImage image, VisionAnalysisResponse cached) {
+    }
+
+    private final ClothingItemService clothingItemService;
+    private final ImageAnalysisCacheService imageAnalysisCacheService;
+    private final VisionService visionService;
+    private final FlaskClassifierService flaskClassifierService;
+    private final OutboundExecutors outboundExecutors;
+    private final MeterRegistry meterRegistry;
+    private final int persistThreads;
+    private final int mapThreads;
+    private final int queueCapacity;
+    private final long ttlMillis;
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Job> jobs;
+    private final Counter rejected;
+    private ThreadPoolExecutor persistStage;
+    private ThreadPoolExecutor mapStage;
+
+    public ImageIngestionService(ClothingItemService clothingItemService,
+                                 ImageAnalysisCacheService imageAnalysisCacheService,
+                                 VisionService visionService,
+                                 FlaskClassifierService flaskClassifierService,
+                                 OutboundExecutors outboundExecutors,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${outfit.ingestion.persist-threads:2}") int persistThreads,
+                                 @Value("${outfit.ingestion.map-threads:2}") int mapThreads,
+                                 @Value("${outfit.ingestion.queue-capacity:50}") int queueCapacity,
+                                 @Value("${outfit.ingestion.max-jobs:10000}") int maxJobs,
+                                 @Value("${outfit.ingestion.job-ttl-seconds:600}") long ttlSeconds) {
+        this.clothingItemService = clothingItemService;
+        this.imageAnalysisCacheService = imageAnalysisCacheService;
+        this.visionService = visionService;
+        this.flaskClassifierService = flaskClassifierService;
+        this.outboundExecutors = outboundExecutors;
+        this.meterRegistry = meterRegistry;
+        this.persistThreads = persistThreads;
+        this.mapThreads = mapThreads;
+        this.queueCapacity = queueCapacity;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.rejected = meterRegistry.counter("outfit.ingestion.rejected");
+        this.jobs = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Job> eldest) {
+                return size() > maxJobs;
+            }
+        };
+    }
+
+    @PostConstruct
+    public void startStages() {
+        persistStage = stage("persist", persistThreads);
+        mapStage = stage("map", mapThreads);
+    }
+
+    @PreDestroy
+    public void stopStages() {
+        persistStage.shutdownNow();
+        mapStage.shutdownNow();
+    }
+
+    /**
+     * Starts the analysis of an uploaded image and returns its job; the image is read here, since
+     * the upload is gone once the request ends.
+     */
+    public ImageIngestionJobDTO submit(MultipartFile file) {
+        if (file.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Fișierul este gol");
+        }
+        byte[] image;
+        try {
+            image = file.getBytes();
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not read the uploaded file", e);
+        }
+
+        Job job = new Job(newJobId());
+        CompletableFuture<Persisted> persisted;
+        try {
+            persisted = runStage(persistStage, job, Stage.PERSISTING, () -> {
+                ClothingItemService.StoredImage stored = clothingItemService.storeTemporaryImage(new ByteArrayInputStream(image));
+                return new Persisted(stored, imageAnalysisCacheService.lookup(stored.contentHash(), stored.fileName()));
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many uploads in progress, try again later");
+        }
+        store(job);
+
+        persisted
+                .thenCompose(upload -> upload.cached() != null
+                        ? CompletableFuture.completedFuture(upload.cached())
+                        : analyze(job, upload.image()))
+                .whenComplete((result, error) -> finish(job, result, error));
+        return job.toDTO();
+    }
+
+    /** The job's current state. */
+    public ImageIngestionJobDTO status(String jobId) {
+        return find(jobId).toDTO();
+    }
+
+    /** Completes with the job's final state once it is done or has failed. */
+    public CompletableFuture<ImageIngestionJobDTO> whenFinished(String jobId) {
+        return find(jobId).finished.thenApply(Job::toDTO);
+    }
+
+    /** The stages after persist, for an image not seen before. */
+    private CompletableFuture<VisionAnalysisResponse> analyze(Job job, ClothingItemService.StoredImage stored) {
+        String fileName = stored.fileName();
+        Path path = clothingItemService.temporaryImagePath(fileName);
+        return runStage(outboundExecutors.executor(OutboundExecutors.Downstream.REMOVE_BG), job,
+                Stage.REMOVING_BACKGROUND, () -> clothingItemService.sendToFlaskRemoveBg(path.toString()))
+                .thenCompose(backgroundRemoved -> {
+                    job.stage = Stage.ANALYZING;
+                    CompletableFuture<Map<String, Object>> vision = runStage(
+                            outboundExecutors.executor(OutboundExecutors.Downstream.VISION), job, null,
+                            () -> visionService.detectLabelsAndColorsFromFilename(fileName));
+                    CompletableFuture<Map<String, String>> classified = runStage(
+                            outboundExecutors.executor(OutboundExecutors.Downstream.CLASSIFIER), job, null,
+                            () -> flaskClassifierService.callFlaskClassifier(path.toFile()));
+                    return vision.thenCombine(classified, (visionData, aiData) -> runStage(mapStage, job, Stage.MAPPING, () -> {
+                        VisionAnalysisResponse response = clothingItemService.toAnalysisResponse(fileName, visionData, aiData);
+                        // an image that still has its background is not worth reusing
+                        if (backgroundRemoved) {
+                            imageAnalysisCacheService.store(stored.contentHash(), response);
+                        }
+                        return response;
+                    }));
+                })
+                .thenCompose(mapped -> mapped);
+    }
+
+    /**
+     * Runs {@code work} on a stage pool or a downstream's executor.
+     *
+     * @param stage shown while the work runs; null leaves the job's stage as it is
+     * @throws RejectedExecutionException when the queue is full; inside a
+     *                                    {@code thenCompose} this fails the job
+     */
+    private <T> CompletableFuture<T> runStage(Executor pool, Job job, Stage stage, Callable<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        pool.execute(() -> {
+            if (stage != null) job.stage = stage;
+            try {
+                future.complete(work.call());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private void finish(Job job, VisionAnalysisResponse result, Throwable error) {
+        if (error == null) {
+            job.result = result;
+            job.stage = Stage.DONE;
+        } else {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof RejectedExecutionException) {
+                rejected.increment();
+                job.error = "Too many uploads in progress, try again later";
+            } else {
+                System.err.println("❌ Eroare la analiza imaginii (job " + job.id + "): " + cause);
+                job.error = "Eroare la analiza imaginii";
+            }
+            job.stage = Stage.FAILED;
+        }
+        job.finishedAt = System.currentTimeMillis();
+        job.finished.complete(job);
+    }
+
+    private void store(Job job) {
+        synchronized (jobs) {
+            long now = System.currentTimeMillis();
+            // insertion order puts the oldest jobs first
+            Iterator<Job> eldest = jobs.values().iterator();
+            while (eldest.hasNext()) {
+                Job old = eldest.next();
+                if (old.finishedAt == 0 || now - old.finishedAt <= ttlMillis) break;
+                eldest.remove();
+            }
+            jobs.put(job.id, job);
+        }
+    }
+
+    private Job find(String jobId) {
+        Job job;
+        synchronized (jobs) {
+            job = jobs.get(jobId);
+        }
+        if (job == null || job.finishedAt != 0 && System.currentTimeMillis() - job.finishedAt > ttlMillis) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload job not found");
+        }
+        return job;
+    }
+
+    private String newJobId() {
+        byte[] bytes = new byte[18];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private ThreadPoolExecutor stage(String name, int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread worker = new Thread(task, "ingest-" + name + "-" + counter.incrementAndGet());
+                    worker.setDaemon(true);
+                    return worker;
+                });
+        Gauge.builder("outfit.ingestion.queue", pool, executor -> executor.getQueue().size())
+                .tag("stage", name)
+                .register(meterRegistry);
+        return pool;
+    }
+}
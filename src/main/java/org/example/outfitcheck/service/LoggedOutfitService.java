@@ -10,6 +10,7 @@ import org.example.outfitcheck.entity.Outfit;
 import org.example.outfitcheck.repository.ClothingItemRepository;
 import org.example.outfitcheck.repository.LoggedOutfitRepository;
 import org.example.outfitcheck.repository.OutfitRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -23,6 +24,7 @@ public class LoggedOutfitService {
     private final LoggedOutfitRepository loggedOutfitRepository;
     private final OutfitRepository outfitRepository;
     private final ClothingItemRepository clothingItemRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public LoggedOutfit logOutfit(LoggedOutfitDTO dto) {
         Outfit outfit = outfitRepository.findById(dto.getOutfitId())
@@ -39,7 +41,9 @@ public class LoggedOutfitService {
         loggedOutfit.setDate(dto.getDate());
         loggedOutfit.setUserId(dto.getUserId());
 
-        return loggedOutfitRepository.save(loggedOutfit);
+        LoggedOutfit saved = loggedOutfitRepository.save(loggedOutfit);
+        publishWorn(dto.getUserId());
+        return saved;
     }
 
     public Optional<LoggedOutfit> getOutfitByUserAndDate(Long userId, LocalDate date) {
@@ -52,7 +56,15 @@ public class LoggedOutfitService {
 
     public void deleteByUserAndDate(Long userId, LocalDate date) {
         Optional<LoggedOutfit> outfit = loggedOutfitRepository.findByUserIdAndDate(userId, date);
-        outfit.ifPresent(loggedOutfitRepository::delete);
+        outfit.ifPresent(logged -> {
+            loggedOutfitRepository.delete(logged);
+            publishWorn(userId);
+        });
+    }
+
+    // sugestiile tin cont de ce s-a purtat recent
+    private void publishWorn(Long userId) {
+        eventPublisher.publishEvent(new WardrobeChangedEvent(userId, null, WardrobeChangedEvent.Change.WORN));
     }
 
     public List<OutfitUsageDTO> getTopWornOutfits(Long userId) {
@@ -4,10 +4,14 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class OpenAIService {
@@ -15,8 +19,22 @@ public class OpenAIService {
     @Value("${openai.api.key}")
     private String openAIApiKey;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OutboundExecutors outboundExecutors;
+
+    /** With timeouts, so a hung call gives its place on the OpenAI executor back. */
+    public OpenAIService(OutboundExecutors outboundExecutors,
+                         @Value("${outfit.openai.connect-timeout-ms:5000}") long connectTimeoutMs,
+                         @Value("${outfit.openai.read-timeout-ms:60000}") long readTimeoutMs) {
+        this.outboundExecutors = outboundExecutors;
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
 
     private static final List<String> SYMBOLS = List.of(
             "Machine wash 30C",
@@ -35,6 +53,11 @@ public class OpenAIService {
             "Do not bleach"
     );
 
+    /** {@link #analyzeLabel} on the OpenAI executor, so no request thread waits for the model. */
+    public CompletableFuture<List<String>> analyzeLabelAsync(String imageBase64) {
+        return outboundExecutors.supply(OutboundExecutors.Downstream.OPENAI, () -> analyzeLabel(imageBase64));
+    }
+
     public List<String> analyzeLabel(String imageBase64) {
         String endpoint = "https://api.openai.com/v1/chat/completions";
 
@@ -0,0 +1,193 @@
+package org.example.outfitcheck.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * One executor per downstream service for the blocking calls of the upload path, so network I/O
+ * neither runs on the common fork-join pool nor competes with CPU work, and one slow downstream
+ * only fills its own executor.
+ *
+ * Each executor runs at most {@code max-concurrent} calls and lets {@code queue-capacity} more
+ * wait; beyond that a call is rejected. With {@code outfit.outbound.virtual-threads} every call
+ * gets its own virtual thread and a semaphore keeps the limit, otherwise a fixed pool of platform
+ * threads does. Running and waiting calls are exported as {@code outfit.outbound.active} and
+ * {@code outfit.outbound.queued}, tagged with the downstream.
+ */
+@Service
+public class OutboundExecutors {
+
+    public enum Downstream { VISION, CLASSIFIER, REMOVE_BG, OPENAI }
+
+    private interface Lane extends Executor {
+        int active();
+
+        int queued();
+
+        void shutdown();
+    }
+
+    /** A fixed pool of platform threads with a bounded queue. */
+    private static final class PlatformLane implements Lane {
+        private final ThreadPoolExecutor pool;
+
+        PlatformLane(String name, int maxConcurrent, int queueCapacity) {
+            AtomicInteger counter = new AtomicInteger();
+            pool = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), task -> {
+                        Thread worker = new Thread(task, name + "-" + counter.incrementAndGet());
+                        worker.setDaemon(true);
+                        return worker;
+                    });
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            pool.execute(task);
+        }
+
+        @Override
+        public int active() {
+            return pool.getActiveCount();
+        }
+
+        @Override
+        public int queued() {
+            return pool.getQueue().size();
+        }
+
+        @Override
+        public void shutdown() {
+            pool.shutdownNow();
+        }
+    }
+
+    /** A virtual thread per call; the semaphore keeps the concurrency limit, waiting threads are the queue. */
+    private static final class VirtualLane implements Lane {
+        private final VirtualThreadTaskExecutor threads;
+        private final Semaphore permits;
+        private final int maxInFlight;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+
+        VirtualLane(String name, int maxConcurrent, int queueCapacity) {
+            threads = new VirtualThreadTaskExecutor(name + "-");
+            permits = new Semaphore(maxConcurrent);
+            maxInFlight = maxConcurrent + queueCapacity;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (inFlight.incrementAndGet() > maxInFlight) {
+                inFlight.decrementAndGet();
+                throw new RejectedExecutionException("Too many calls waiting");
+            }
+            threads.execute(() -> {
+                // the task completes a caller's future, so it must run even if this thread is interrupted
+                permits.acquireUninterruptibly();
+                running.incrementAndGet();
+                try {
+                    task.run();
+                } finally {
+                    running.decrementAndGet();
+                    permits.release();
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+
+        @Override
+        public int active() {
+            return running.get();
+        }
+
+        @Override
+        public int queued() {
+            return inFlight.get() - running.get();
+        }
+
+        @Override
+        public void shutdown() {
+            // virtual threads do not keep the JVM alive
+        }
+    }
+
+    private final Map<Downstream, Lane> lanes = new EnumMap<>(Downstream.class);
+    private final Map<Downstream, Counter> rejected = new EnumMap<>(Downstream.class);
+
+    public OutboundExecutors(MeterRegistry meterRegistry,
+                             @Value("${outfit.outbound.virtual-threads:false}") boolean virtualThreads,
+                             @Value("${outfit.outbound.queue-capacity:100}") int queueCapacity,
+                             @Value("${outfit.outbound.vision.max-concurrent:8}") int visionMaxConcurrent,
+                             @Value("${outfit.outbound.classifier.max-concurrent:8}") int classifierMaxConcurrent,
+                             @Value("${outfit.outbound.remove-bg.max-concurrent:4}") int removeBgMaxConcurrent,
+                             @Value("${outfit.outbound.openai.max-concurrent:4}") int openAiMaxConcurrent) {
+        Map<Downstream, Integer> maxConcurrent = Map.of(
+                Downstream.VISION, visionMaxConcurrent,
+                Downstream.CLASSIFIER, classifierMaxConcurrent,
+                Downstream.REMOVE_BG, removeBgMaxConcurrent,
+                Downstream.OPENAI, openAiMaxConcurrent);
+        for (Downstream downstream : Downstream.values()) {
+            String name = downstream.name().toLowerCase(Locale.ROOT).replace('_', '-');
+            Lane lane = virtualThreads
+                    ? new VirtualLane(name, maxConcurrent.get(downstream), queueCapacity)
+                    : new PlatformLane(name, maxConcurrent.get(downstream), queueCapacity);
+            lanes.put(downstream, lane);
+            Gauge.builder("outfit.outbound.active", lane, Lane::active).tag("downstream", name).register(meterRegistry);
+            Gauge.builder("outfit.outbound.queued", lane, Lane::queued).tag("downstream", name).register(meterRegistry);
+            rejected.put(downstream, meterRegistry.counter("outfit.outbound.rejected", "downstream", name));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lanes.values().forEach(Lane::shutdown);
+    }
+
+    /** The downstream's executor; {@code execute} throws {@link RejectedExecutionException} when it is full. */
+    public Executor executor(Downstream downstream) {
+        Executor lane = lanes.get(downstream);
+        Counter rejections = rejected.get(downstream);
+        return task -> {
+            try {
+                lane.execute(task);
+            } catch (RejectedExecutionException e) {
+                rejections.increment();
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * Runs {@code call} on the downstream's executor.
+     *
+     * @throws ResponseStatusException 503 when the executor is full
+     */
+    public <T> CompletableFuture<T> supply(Downstream downstream, Supplier<T> call) {
+        try {
+            return CompletableFuture.supplyAsync(call, executor(downstream));
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, downstream + " is busy, try again later");
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package org.example.outfitcheck.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How many outfits of one shape a set of items makes, by slot and color.
+ *
+ * An outfit counts when no two of its items clash ({@link ScoringRules#compatibleColors}); two
+ * tops of the same outfit are an unordered pair of different items. Whether an outfit counts only
+ * depends on the colors of its items, so the outfits are never listed: the items come grouped by
+ * slot and color, and the colors of the other positions are enumerated once per slot, multiplying
+ * the group sizes. The cost depends on the number of colors, not on the number of items.
+ */
+final class OutfitCounts {
+
+    final int[] shape;
+    /** Outfits of the whole set. */
+    final long total;
+    /** Outfits an item of the set with this slot and color is part of. */
+    final long[][] share;
+    /** Outfits an additional item with this slot and color would be part of. */
+    final long[][] gain;
+
+    private final long[][] groups;
+    private final ScoringRules rules;
+
+    /**
+     * @param groups items per slot and color; only read while counting
+     * @param shape  slots of the outfit positions, see {@link #shape}
+     */
+    OutfitCounts(long[][] groups, ScoringRules rules, int[] shape) {
+        this.shape = shape;
+        this.groups = groups;
+        this.rules = rules;
+        int colors = rules.colorStride();
+        share = new long[WardrobeFeatures.OTHER_SLOT][colors];
+        gain = new long[WardrobeFeatures.OTHER_SLOT][colors];
+
+        int allColors = colors == Integer.SIZE ? -1 : (1 << colors) - 1;
+        boolean[] counted = new boolean[WardrobeFeatures.OTHER_SLOT];
+        for (int p = 0; p < shape.length; p++) {
+            int slot = shape[p];
+            if (counted[slot]) continue;
+            counted[slot] = true;
+            // the other positions; a second one of the same slot (the other top) goes last
+            int[] others = new int[shape.length - 1];
+            int o = 0;
+            for (int q = 0; q < shape.length; q++) {
+                if (q != p && shape[q] != slot) others[o++] = shape[q];
+            }
+            while (o < others.length) others[o++] = slot;
+            long[][] outfits = completions(slot, others, 0, allColors, new HashMap<>());
+            share[slot] = outfits[0];
+            gain[slot] = outfits[1];
+        }
+
+        // footwear is part of every shape and has a single position
+        long outfits = 0;
+        for (int color = 0; color < colors; color++) {
+            outfits = plus(outfits, times(groups[WardrobeFeatures.FOOTWEAR][color],
+                    share[WardrobeFeatures.FOOTWEAR][color]));
+        }
+        total = outfits;
+    }
+
+    /** Candidates of every slot, grouped by slot and color. */
+    static long[][] groups(WardrobeFeatures wardrobe, OutfitGeneratorService.RankedSlots slots) {
+        long[][] groups = new long[WardrobeFeatures.OTHER_SLOT][slots.rules.colorStride()];
+        for (int slot = 0; slot < groups.length; slot++) {
+            for (int i : slots.candidates[slot]) {
+                groups[slot][wardrobe.color[i]]++;
+            }
+        }
+        return groups;
+    }
+
+    /** Slots of the outfit positions, laid out like {@link OutfitGeneratorService#buildSearch}. */
+    static int[] shape(boolean includeHeadwear, boolean includeOuterwear,
+                       int topwearLayers, boolean preferFullBodywear) {
+        List<Integer> shape = new ArrayList<>();
+        if (preferFullBodywear) {
+            shape.add(WardrobeFeatures.FULLBODYWEAR);
+        } else {
+            shape.add(WardrobeFeatures.TOPWEAR);
+            if (topwearLayers != 1) shape.add(WardrobeFeatures.TOPWEAR);
+            shape.add(WardrobeFeatures.BOTTOMWEAR);
+        }
+        shape.add(WardrobeFeatures.FOOTWEAR);
+        if (includeOuterwear) shape.add(WardrobeFeatures.OUTERWEAR);
+        if (includeHeadwear) shape.add(WardrobeFeatures.HEADWEAR);
+        return shape.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Ways to fill the positions from {@code depth} on with colors that clash with nothing
+     * picked so far, by the color left for the item of {@code slot}: {share, gain}.
+     *
+     * The result only depends on the depth and the colors still allowed, and different
+     * prefixes often leave the same ones, so results are memoized on both.
+     *
+     * @param allowed colors the remaining positions may still take, as a bit set
+     */
+    private long[][] completions(int slot, int[] others, int depth, int allowed, Map<Long, long[][]> memo) {
+        long key = (long) depth << Integer.SIZE | (allowed & 0xFFFFFFFFL);
+        long[][] known = memo.get(key);
+        if (known != null) return known;
+
+        int colors = groups[slot].length;
+        long[][] outfits = new long[2][colors];
+        if (depth == others.length) {
+            for (int bits = allowed; bits != 0; bits &= bits - 1) {
+                int color = Integer.numberOfTrailingZeros(bits);
+                outfits[0][color] = 1;
+                outfits[1][color] = 1;
+            }
+        } else if (others[depth] == slot) {
+            // the other item of the same slot; an item is never paired with itself
+            long[] group = groups[slot];
+            for (int paired = 0; paired < colors; paired++) {
+                if (group[paired] == 0 || (allowed & 1 << paired) == 0) continue;
+                for (int bits = allowed & rules.compatibleColors(paired); bits != 0; bits &= bits - 1) {
+                    int color = Integer.numberOfTrailingZeros(bits);
+                    outfits[0][color] += color == paired ? group[paired] - 1 : group[paired];
+                    outfits[1][color] += group[paired];
+                }
+            }
+        } else {
+            int positionSlot = others[depth];
+            long[] group = groups[positionSlot];
+            boolean pair = depth + 1 < others.length && others[depth + 1] == positionSlot;
+            for (int color = 0; color < colors; color++) {
+                if (group[color] == 0 || (allowed & 1 << color) == 0) continue;
+                int next = allowed & rules.compatibleColors(color);
+                if (!pair) {
+                    add(outfits, completions(slot, others, depth + 1, next, memo), group[color]);
+                    continue;
+                }
+                // both tops at once, each unordered pair of colors once
+                for (int second = color; second < colors; second++) {
+                    if ((next & 1 << second) == 0) continue;
+                    long pairs = second == color
+                            ? group[color] * (group[color] - 1) / 2
+                            : group[color] * group[second];
+                    if (pairs == 0) continue;
+                    add(outfits, completions(slot, others, depth + 2, next & rules.compatibleColors(second), memo),
+                            pairs);
+                }
+            }
+        }
+        memo.put(key, outfits);
+        return outfits;
+    }
+
+    private static void add(long[][] outfits, long[][] completions, long times) {
+        for (int k = 0; k < outfits.length; k++) {
+            for (int color = 0; color < outfits[k].length; color++) {
+                outfits[k][color] = plus(outfits[k][color], times(completions[k][color], times));
+            }
+        }
+    }
+
+    /** Counts grow multiplicatively with the wardrobe; they saturate instead of overflowing. */
+    static long times(long a, long b) {
+        long product = a * b;
+        return Math.multiplyHigh(a, b) != 0 || product < 0 ? Long.MAX_VALUE : product;
+    }
+
+    static long plus(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.outfitcheck.service;
+
+import org.example.outfitcheck.dto.OutfitSuggestionDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Learns per-user {@link FeedbackWeights} from accepted and rejected suggestions. Each event
+ * moves only the weights of the outfit's own features, so recording feedback costs the same
+ * for any wardrobe size. The weights live in a bounded in-memory LRU; a user that falls out of
+ * it starts over from neutral weights.
+ */
+@Service
+public class OutfitFeedbackService {
+
+    private final WardrobeIndexService wardrobeIndexService;
+    private final ColorSpaceService colorSpaceService;
+    private final float learningRate;
+    private final float maxWeight;
+    private final Map<Long, FeedbackWeights> weights;
+    /** Source of weight versions; never repeats, even for a user that was evicted meanwhile. */
+    private long lastVersion;
+
+    public OutfitFeedbackService(WardrobeIndexService wardrobeIndexService,
+                                 ColorSpaceService colorSpaceService,
+                                 @Value("${outfit.feedback.learning-rate:5}") float learningRate,
+                                 @Value("${outfit.feedback.max-weight:50}") float maxWeight,
+                                 @Value("${outfit.feedback.max-users:10000}") int maxUsers) {
+        this.wardrobeIndexService = wardrobeIndexService;
+        this.colorSpaceService = colorSpaceService;
+        this.learningRate = learningRate;
+        this.maxWeight = maxWeight;
+        this.weights = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, FeedbackWeights> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    public void recordFeedback(Long userId, OutfitSuggestionDTO outfit, boolean accepted) {
+        if (userId == null || outfit == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "userId and outfit are required");
+        }
+        WardrobeFeatures wardrobe = wardrobeIndexService.features(userId);
+        int[] items = Stream.of(outfit.getTop1Id(), outfit.getTop2Id(), outfit.getBottomId(),
+                        outfit.getFootwearId(), outfit.getOuterwearId(), outfit.getHeadwearId(),
+                        outfit.getFullBodywearId())
+                .filter(Objects::nonNull)
+                .mapToInt(wardrobe::indexOf)
+                .filter(index -> index >= 0)
+                .toArray();
+        if (items.length == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The outfit has no available item of this user");
+        }
+
+        synchronized (weights) {
+            FeedbackWeights user = weights.computeIfAbsent(userId,
+                    id -> new FeedbackWeights(colorSpaceService.paletteSize() + 1));
+            user.learn(wardrobe, items, accepted ? learningRate : -learningRate, maxWeight);
+            user.version = ++lastVersion;
+        }
+    }
+
+    /** A private copy of the user's weights, or null while there is no feedback. */
+    FeedbackWeights weights(Long userId) {
+        synchronized (weights) {
+            FeedbackWeights user = weights.get(userId);
+            return user != null ? user.copy() : null;
+        }
+    }
+
+    /** Changes with every recorded event, for keys of anything scored with the weights. */
+    public long version(Long userId) {
+        synchronized (weights) {
+            FeedbackWeights user = weights.get(userId);
+            return user != null ? user.version : 0L;
+        }
+    }
+}
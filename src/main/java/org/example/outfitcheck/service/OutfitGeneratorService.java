@@ -1,41 +1,104 @@
 package org.example.outfitcheck.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.outfitcheck.dto.OutfitGenerationRequest;
+import org.example.outfitcheck.dto.OutfitGenerationResultDTO;
+import org.example.outfitcheck.dto.OutfitPlanDTO;
 import org.example.outfitcheck.dto.OutfitSuggestionDTO;
-import org.example.outfitcheck.entity.ClothingItem;
-import org.example.outfitcheck.repository.ClothingItemRepository;
+import org.example.outfitcheck.dto.OutfitSuggestionPageDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.awt.Color;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class OutfitGeneratorService {
 
+    static final int SUGGESTION_COUNT = 5;
+    private static final int DEFAULT_MAX_ITEM_USES = 2;
+    /** The planner's shared pool holds at least this many ranked outfits per planned day. */
+    private static final int PLAN_CANDIDATES_PER_DAY = 64;
+    private static final int PLAN_MAX_CANDIDATES = 16384;
+
+    @Autowired
+    private WardrobeIndexService wardrobeIndexService;
+
+    @Autowired
+    private WardrobeVersionService wardrobeVersionService;
+
+    @Autowired
+    private ScoringRulesService scoringRulesService;
+
+    @Autowired
+    private OutfitFeedbackService outfitFeedbackService;
+
+    @Autowired
+    private WearHistoryService wearHistoryService;
+
+    @Autowired
+    private RecommendationCache recommendationCache;
+
     @Autowired
-    private ClothingItemRepository clothingItemRepository;
-
-    private static final Map<String, String> COLOR_NAME_TO_HEX = Map.ofEntries(
-            Map.entry("Red",       "#FF0000"),
-            Map.entry("Dark Red",  "#8B0000"),
-            Map.entry("Blue",      "#0000FF"),
-            Map.entry("Light Blue","#ADD8E6"),
-            Map.entry("Green",     "#00FF00"),
-            Map.entry("Dark Green","#006400"),
-            Map.entry("Yellow",    "#FFFF00"),
-            Map.entry("Orange",    "#FFA500"),
-            Map.entry("Purple",    "#800080"),
-            Map.entry("Pink",      "#FFC0CB"),
-            Map.entry("Brown",     "#A52A2A"),
-            Map.entry("Black",     "#000000"),
-            Map.entry("White",     "#FFFFFF"),
-            Map.entry("Gray",      "#808080"),
-            Map.entry("Light Gray", "#D3D3D3"),
-            Map.entry("Dark Gray",  "#505050"),
-            Map.entry("Beige",     "#F5F5DC")
-    );
+    private RecommendationSessionStore sessionStore;
 
+    /** How many ranked outfits one search pass keeps before diversification. */
+    @Value("${outfit.generator.candidate-pool:256}")
+    private int candidatePoolSize;
+
+    @Value("${outfit.generator.parallel.enabled:false}")
+    private boolean parallelEnabled;
+
+    /** Wardrobes with fewer (available) items than this are always searched on the request thread. */
+    @Value("${outfit.generator.parallel.min-items:150}")
+    private int parallelMinItems;
+
+    /** Worker threads dedicated to outfit search, kept separate from the common pool and Tomcat. */
+    @Value("${outfit.generator.parallel.parallelism:0}")
+    private int parallelism;
+
+    @Value("${outfit.generator.batch.max-requests:14}")
+    private int batchMaxRequests;
+
+    @Value("${outfit.planner.max-days:14}")
+    private int plannerMaxDays;
+
+    /** Local search stops improving the plan after this long. */
+    @Value("${outfit.planner.time-budget-ms:200}")
+    private long plannerTimeBudgetMs;
+
+    private ForkJoinPool searchPool;
+
+    @PostConstruct
+    public void startSearchPool() {
+        if (!parallelEnabled) return;
+        int threads = parallelism > 0 ? parallelism : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        searchPool = new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            worker.setName("outfit-search-" + counter.incrementAndGet());
+            return worker;
+        }, null, false);
+    }
+
+    @PreDestroy
+    public void stopSearchPool() {
+        if (searchPool != null) {
+            searchPool.shutdownNow();
+        }
+    }
 
     public List<OutfitSuggestionDTO> generateOutfits(
             Long userId,
@@ -46,87 +109,432 @@ public class OutfitGeneratorService {
             int topwearLayers,
             boolean preferFullBodywear
     ) {
-        List<ClothingItem> items = clothingItemRepository.findByOwnerIdAndInLaundryFalse(userId);
-        // Prepare lists based on preference
-        List<ClothingItem> tops;
-        List<ClothingItem> bottoms;
-        List<ClothingItem> footwears;
-
-        if (preferFullBodywear) {
-            tops = Collections.emptyList();
-            bottoms = Collections.emptyList();
-            footwears = filterBySeasonAndUsage(items, "Footwear", season, context);
-        } else {
-            tops = filterBySeasonAndUsage(items, "Topwear", season, context);
-            bottoms = filterBySeasonAndUsage(items, "Bottomwear", season, context);
-            footwears = filterBySeasonAndUsage(items, "Footwear", season, context);
-        }
-
-        List<ClothingItem> fullbodies = filterBySeasonAndUsage(items, "FullBodywear", season, context);
-        List<ClothingItem> outerwears = includeOuterwear
-                ? filterBySeasonAndUsage(items, "Outerwear", season, context)
-                : Collections.<ClothingItem>singletonList(null);
-        List<ClothingItem> headwears = includeHeadwear
-                ? filter(items, "Headwear")
-                : Collections.<ClothingItem>singletonList(null);
-
-        Collections.shuffle(tops);
-        Collections.shuffle(bottoms);
-        Collections.shuffle(footwears);
-        Collections.shuffle(fullbodies);
-        Collections.shuffle(outerwears);
-        Collections.shuffle(headwears);
-
-        List<OutfitSuggestionDTO> generated = buildCombinations(
-                tops, bottoms, footwears,
-                outerwears, headwears, fullbodies,
-                includeOuterwear, includeHeadwear,
-                preferFullBodywear, topwearLayers
+        RecommendationCache.Key key = RecommendationCache.Key.of(
+                userId, context, season,
+                includeHeadwear, includeOuterwear,
+                topwearLayers, preferFullBodywear,
+                wardrobeVersionService.currentVersion(userId),
+                outfitFeedbackService.version(userId)
+        );
+        return recommendationCache.get(key, () -> generateUncached(
+                userId, context, season,
+                includeHeadwear, includeOuterwear,
+                topwearLayers, preferFullBodywear,
+                List.of(), null
+        ).getOutfits());
+    }
+
+    /**
+     * {@link #generateOutfits} for batch jobs: skips the recommendation cache and leaves the
+     * wardrobe index as it is, so a run over every user does not evict what active users need.
+     */
+    public List<OutfitSuggestionDTO> generateOutfitsUncached(
+            Long userId,
+            String context,
+            String season,
+            boolean includeHeadwear,
+            boolean includeOuterwear,
+            int topwearLayers,
+            boolean preferFullBodywear
+    ) {
+        return generateUncached(
+                wardrobeIndexService.featuresUncached(userId),
+                userId, context, season,
+                includeHeadwear, includeOuterwear,
+                topwearLayers, preferFullBodywear,
+                List.of(), null
+        ).getOutfits();
+    }
+
+    /**
+     * Same as {@link #generateOutfits}, with two optional extras:
+     * <ul>
+     *     <li>{@code pinnedItemIds}: items every outfit must contain ("build around this item").
+     *     Their slots are fixed and only the remaining slots are searched; a pinned outerwear or
+     *     headwear item switches that slot on, a pinned full-body item switches to full-body outfits.</li>
+     *     <li>{@code budgetMillis} / {@code budgetNodes}: stop searching once the time or work
+     *     (visited search nodes) budget is used up and return the best diversified set found by
+     *     then. Only exhaustive results are cached.</li>
+     * </ul>
+     */
+    public OutfitGenerationResultDTO generateOutfits(
+            Long userId,
+            String context,
+            String season,
+            boolean includeHeadwear,
+            boolean includeOuterwear,
+            int topwearLayers,
+            boolean preferFullBodywear,
+            List<Long> pinnedItemIds,
+            Long budgetMillis,
+            Long budgetNodes
+    ) {
+        RecommendationCache.Key key = RecommendationCache.Key.of(
+                userId, context, season,
+                includeHeadwear, includeOuterwear,
+                topwearLayers, preferFullBodywear,
+                pinnedItemIds,
+                wardrobeVersionService.currentVersion(userId),
+                outfitFeedbackService.version(userId)
+        );
+        List<OutfitSuggestionDTO> cached = recommendationCache.lookup(key);
+        if (cached != null) {
+            return new OutfitGenerationResultDTO(cached, true);
+        }
+        OutfitGenerationResultDTO result = generateUncached(
+                userId, context, season,
+                includeHeadwear, includeOuterwear,
+                topwearLayers, preferFullBodywear,
+                key.pinnedItemIds(),
+                OutfitSearch.Budget.of(budgetMillis, budgetNodes)
+        );
+        if (result.isExhaustive()) {
+            recommendationCache.put(key, result.getOutfits());
+        }
+        return result;
+    }
+
+    /**
+     * Streaming variant of {@link #generateOutfits}: every suggestion goes to {@code sink} as soon
+     * as its place in the result is final. The wardrobe and wear history are loaded on the calling
+     * thread, the search runs on the search pool (or the common pool); the future completes after
+     * the last suggestion.
+     */
+    public CompletableFuture<Void> streamOutfits(
+            Long userId,
+            String context,
+            String season,
+            boolean includeHeadwear,
+            boolean includeOuterwear,
+            int topwearLayers,
+            boolean preferFullBodywear,
+            List<Long> pinnedItemIds,
+            Consumer<OutfitSuggestionDTO> sink
+    ) {
+        RecommendationCache.Key key = RecommendationCache.Key.of(
+                userId, context, season,
+                includeHeadwear, includeOuterwear,
+                topwearLayers, preferFullBodywear,
+                pinnedItemIds,
+                wardrobeVersionService.currentVersion(userId),
+                outfitFeedbackService.version(userId)
         );
+        List<OutfitSuggestionDTO> cached = recommendationCache.lookup(key);
+        if (cached != null) {
+            cached.forEach(sink);
+            return CompletableFuture.completedFuture(null);
+        }
 
-        // Fallback if no strict outfits
-        if (generated.isEmpty()) {
-            tops = preferFullBodywear ? Collections.emptyList() : filterBySeasonAndUsage(items, "Topwear", season, context);
-            bottoms = preferFullBodywear ? Collections.emptyList() : filterBySeasonAndUsage(items, "Bottomwear", season, context);
-            footwears = filterBySeasonAndUsage(items, "Footwear", season, context);
-            fullbodies = filterBySeasonAndUsage(items, "FullBodywear", season, context);
-            outerwears = includeOuterwear ? filterBySeasonAndUsage(items, "Outerwear", season, context) : Collections.<ClothingItem>singletonList(null);
-            headwears = includeHeadwear ? filter(items, "Headwear") : Collections.<ClothingItem>singletonList(null);
-
-            Collections.shuffle(tops);
-            Collections.shuffle(bottoms);
-            Collections.shuffle(footwears);
-            Collections.shuffle(fullbodies);
-            Collections.shuffle(outerwears);
-            Collections.shuffle(headwears);
-
-            generated = buildCombinations(
-                    tops, bottoms, footwears,
-                    outerwears, headwears, fullbodies,
-                    includeOuterwear, includeHeadwear,
-                    preferFullBodywear, topwearLayers
+        WardrobeFeatures wardrobe = wardrobeIndexService.features(userId);
+        ScoringRules rules = rulesFor(userId);
+        int[] daysSinceWorn = daysSinceWorn(userId, wardrobe, rules);
+        Executor executor = searchPool != null ? searchPool : ForkJoinPool.commonPool();
+        return CompletableFuture.runAsync(() -> {
+            SuggestionStream stream = openStream(
+                    wardrobe, rankSlots(wardrobe, rules, daysSinceWorn, context, season, ThreadLocalRandom.current()),
+                    includeHeadwear, includeOuterwear,
+                    topwearLayers, preferFullBodywear,
+                    key.pinnedItemIds(), null
             );
+            List<OutfitSuggestionDTO> sent = new ArrayList<>();
+            if (stream != null) {
+                stream.next(SUGGESTION_COUNT, outfit -> {
+                    OutfitSuggestionDTO dto = buildDTO(wardrobe, outfit);
+                    sent.add(dto);
+                    sink.accept(dto);
+                });
+            }
+            recommendationCache.put(key, sent);
+        }, executor);
+    }
+
+    /**
+     * Suggestions for several requests of one user (e.g. the days of a week), in request order.
+     * The wardrobe is loaded once, the ranked slot lists are shared between requests with the
+     * same season and context, and the searches run concurrently. Every result goes through
+     * the same cache as {@link #generateOutfits}.
+     */
+    public List<List<OutfitSuggestionDTO>> generateOutfitBatch(Long userId, List<OutfitGenerationRequest> specs) {
+        if (specs == null || specs.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No requests in batch");
+        }
+        if (specs.size() > batchMaxRequests) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + batchMaxRequests + " requests per batch");
         }
 
-        // Score and pick top
-        generated.forEach(dto -> dto.setScore(calcScore(dto, context, season)));
+        long wardrobeVersion = wardrobeVersionService.currentVersion(userId);
+        long feedbackVersion = outfitFeedbackService.version(userId);
+        List<RecommendationCache.Key> keys = specs.stream()
+                .map(spec -> RecommendationCache.Key.of(
+                        userId, spec.getContext(), spec.getSeason(),
+                        spec.isIncludeHeadwear(), spec.isIncludeOuterwear(),
+                        spec.getTopwearLayers(), spec.isPreferFullBodywear(),
+                        spec.getPinnedItemIds(),
+                        wardrobeVersion, feedbackVersion))
+                .collect(Collectors.toList());
 
-        List<OutfitSuggestionDTO> sorted = generated.stream()
-                .sorted(Comparator.comparingDouble(OutfitSuggestionDTO::getScore).reversed())
+        // entities stay on this thread; the workers only see the feature table
+        WardrobeFeatures wardrobe = wardrobeIndexService.features(userId);
+        ScoringRules rules = rulesFor(userId);
+        int[] daysSinceWorn = daysSinceWorn(userId, wardrobe, rules);
+        Map<List<String>, RankedSlots> slotsByFilter = new HashMap<>();
+        for (RecommendationCache.Key key : keys) {
+            slotsByFilter.computeIfAbsent(Arrays.asList(key.season(), key.context()),
+                    filter -> rankSlots(wardrobe, rules, daysSinceWorn, key.context(), key.season(),
+                            ThreadLocalRandom.current()));
+        }
+
+        Executor executor = searchPool != null ? searchPool : ForkJoinPool.commonPool();
+        List<CompletableFuture<List<OutfitSuggestionDTO>>> results = keys.stream()
+                .map(key -> CompletableFuture.supplyAsync(() -> recommendationCache.get(key, () -> suggest(
+                        wardrobe, slotsByFilter.get(Arrays.asList(key.season(), key.context())),
+                        key.includeHeadwear(), key.includeOuterwear(),
+                        key.topwearLayers(), key.preferFullBodywear(),
+                        key.pinnedItemIds()
+                )), executor))
                 .collect(Collectors.toList());
 
-        List<OutfitSuggestionDTO> diversified = new ArrayList<>();
-        for (OutfitSuggestionDTO candidate : sorted) {
-            boolean similarExists = diversified.stream()
-                    .anyMatch(existing -> isTooSimilar(existing, candidate));
-            if (!similarExists) {
-                diversified.add(candidate);
+        return results.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * One outfit per day for {@code days} days, maximizing the total score: no outfit twice, no
+     * item on more than {@code maxItemUses} days and never the same footwear two days in a row.
+     * All days share one search over the available (not in laundry) wardrobe; see {@link OutfitPlanner}.
+     */
+    public OutfitPlanDTO planOutfits(
+            Long userId,
+            int days,
+            String context,
+            String season,
+            boolean includeHeadwear,
+            boolean includeOuterwear,
+            int topwearLayers,
+            boolean preferFullBodywear,
+            Integer maxItemUses
+    ) {
+        if (days < 1 || days > plannerMaxDays) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A plan covers 1 to " + plannerMaxDays + " days");
+        }
+        int uses = maxItemUses != null ? maxItemUses : DEFAULT_MAX_ITEM_USES;
+        if (uses < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "maxItemUses must be at least 1");
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(plannerTimeBudgetMs);
+
+        WardrobeFeatures wardrobe = wardrobeIndexService.features(userId);
+        OutfitSearch search = buildSearch(
+                wardrobe, rankSlots(wardrobe, userId, context, season, ThreadLocalRandom.current()),
+                includeHeadwear, includeOuterwear,
+                topwearLayers, preferFullBodywear,
+                List.of()
+        );
+        List<OutfitSuggestionDTO> plan = new ArrayList<>();
+        double total = 0;
+        if (search == null) {
+            for (int day = 0; day < days; day++) plan.add(null);
+            return new OutfitPlanDTO(plan, total);
+        }
+
+        ForkJoinPool pool = searchPool != null && wardrobe.size >= parallelMinItems ? searchPool : null;
+        int poolSize = Math.max(candidatePoolSize, days * PLAN_CANDIDATES_PER_DAY);
+        OutfitSearch.RankedOutfit[] picked;
+        while (true) {
+            OutfitSearch.Tier candidates = search.run(null, poolSize, pool, null);
+            picked = new OutfitPlanner(candidates.ranked, wardrobe.size, days, uses, deadline).solve();
+            // the best outfits tend to share items; a day left empty may fit a deeper pool
+            boolean hasEmptyDay = Arrays.stream(picked).anyMatch(Objects::isNull);
+            if (!hasEmptyDay || candidates.complete || poolSize >= PLAN_MAX_CANDIDATES
+                    || System.nanoTime() - deadline >= 0) {
+                break;
             }
-            if (diversified.size() == 5) break;
+            poolSize *= 4;
+        }
+        for (OutfitSearch.RankedOutfit outfit : picked) {
+            plan.add(outfit == null ? null : buildDTO(wardrobe, outfit));
+            if (outfit != null) total += outfit.score;
         }
+        return new OutfitPlanDTO(plan, total);
+    }
 
-        return diversified;
+    /**
+     * First page of a seeded, resumable generation. The same seed over the same wardrobe (and
+     * feedback weights) always produces the same pages; {@code nextCursor} continues the stream.
+     */
+    public OutfitSuggestionPageDTO generateOutfitPage(
+            Long userId,
+            String context,
+            String season,
+            boolean includeHeadwear,
+            boolean includeOuterwear,
+            int topwearLayers,
+            boolean preferFullBodywear,
+            List<Long> pinnedItemIds,
+            Long seed
+    ) {
+        long effectiveSeed = seed != null ? seed : ThreadLocalRandom.current().nextLong();
+        long wardrobeVersion = wardrobeVersionService.currentVersion(userId);
+        WardrobeFeatures wardrobe = wardrobeIndexService.features(userId);
+
+        SuggestionStream stream = openStream(
+                wardrobe, rankSlots(wardrobe, userId, context, season, new Random(effectiveSeed)),
+                includeHeadwear, includeOuterwear,
+                topwearLayers, preferFullBodywear,
+                pinnedItemIds != null ? pinnedItemIds : List.of(), null
+        );
+        if (stream == null) {
+            return new OutfitSuggestionPageDTO(new ArrayList<>(), null, effectiveSeed);
+        }
 
+        List<OutfitSuggestionDTO> page = toDTOs(wardrobe, stream.next(SUGGESTION_COUNT));
+        if (!stream.hasMore()) {
+            return new OutfitSuggestionPageDTO(page, null, effectiveSeed);
+        }
+        RecommendationSessionStore.Session session = new RecommendationSessionStore.Session(
+                userId, wardrobeVersion, effectiveSeed, wardrobe, stream);
+        session.pagesServed = 1;
+        session.lastPage = page;
+        String id = sessionStore.open(session);
+        return new OutfitSuggestionPageDTO(page, RecommendationSessionStore.cursor(id, 1), effectiveSeed);
+    }
+
+    /** Continues a generation started by {@link #generateOutfitPage}. */
+    public OutfitSuggestionPageDTO nextOutfitPage(String cursor) {
+        int dot = cursor == null ? -1 : cursor.lastIndexOf('.');
+        if (dot < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+        String id = cursor.substring(0, dot);
+        int requestedPage;
+        try {
+            requestedPage = Integer.parseInt(cursor.substring(dot + 1));
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+
+        RecommendationSessionStore.Session session = sessionStore.find(id);
+        if (session == null) {
+            throw new ResponseStatusException(HttpStatus.GONE, "Cursor expired");
+        }
+        if (session.wardrobeVersion != wardrobeVersionService.currentVersion(session.userId)) {
+            sessionStore.close(id);
+            throw new ResponseStatusException(HttpStatus.GONE, "Wardrobe changed since the cursor was issued");
+        }
+
+        synchronized (session) {
+            if (requestedPage == session.pagesServed - 1) {
+                // retried request: hand out the same page again
+                return new OutfitSuggestionPageDTO(session.lastPage,
+                        RecommendationSessionStore.cursor(id, session.pagesServed), session.seed);
+            }
+            if (requestedPage != session.pagesServed) {
+                throw new ResponseStatusException(HttpStatus.GONE, "Cursor is no longer current");
+            }
+            List<OutfitSuggestionDTO> page = toDTOs(session.wardrobe, session.stream.next(SUGGESTION_COUNT));
+            session.pagesServed++;
+            session.lastPage = page;
+            String next = session.stream.hasMore() ? RecommendationSessionStore.cursor(id, session.pagesServed) : null;
+            return new OutfitSuggestionPageDTO(page, next, session.seed);
+        }
+    }
+
+    private OutfitGenerationResultDTO generateUncached(
+            Long userId,
+            String context,
+            String season,
+            boolean includeHeadwear,
+            boolean includeOuterwear,
+            int topwearLayers,
+            boolean preferFullBodywear,
+            List<Long> pinnedItemIds,
+            OutfitSearch.Budget budget
+    ) {
+        return generateUncached(
+                wardrobeIndexService.features(userId),
+                userId, context, season,
+                includeHeadwear, includeOuterwear,
+                topwearLayers, preferFullBodywear,
+                pinnedItemIds, budget
+        );
+    }
+
+    private OutfitGenerationResultDTO generateUncached(
+            WardrobeFeatures wardrobe,
+            Long userId,
+            String context,
+            String season,
+            boolean includeHeadwear,
+            boolean includeOuterwear,
+            int topwearLayers,
+            boolean preferFullBodywear,
+            List<Long> pinnedItemIds,
+            OutfitSearch.Budget budget
+    ) {
+        SuggestionStream stream = openStream(
+                wardrobe, rankSlots(wardrobe, userId, context, season, ThreadLocalRandom.current()),
+                includeHeadwear, includeOuterwear,
+                topwearLayers, preferFullBodywear,
+                pinnedItemIds, budget
+        );
+        if (stream == null) {
+            return new OutfitGenerationResultDTO(new ArrayList<>(), true);
+        }
+        List<OutfitSuggestionDTO> outfits = toDTOs(wardrobe, stream.next(SUGGESTION_COUNT));
+        return new OutfitGenerationResultDTO(outfits, stream.isExhaustive());
+    }
+
+    private List<OutfitSuggestionDTO> suggest(
+            WardrobeFeatures wardrobe,
+            RankedSlots slots,
+            boolean includeHeadwear,
+            boolean includeOuterwear,
+            int topwearLayers,
+            boolean preferFullBodywear,
+            List<Long> pinnedItemIds
+    ) {
+        SuggestionStream stream = openStream(
+                wardrobe, slots,
+                includeHeadwear, includeOuterwear,
+                topwearLayers, preferFullBodywear,
+                pinnedItemIds, null
+        );
+        if (stream == null) {
+            return new ArrayList<>();
+        }
+        return toDTOs(wardrobe, stream.next(SUGGESTION_COUNT));
+    }
+
+    private SuggestionStream openStream(
+            WardrobeFeatures wardrobe,
+            RankedSlots slots,
+            boolean includeHeadwear,
+            boolean includeOuterwear,
+            int topwearLayers,
+            boolean preferFullBodywear,
+            List<Long> pinnedItemIds,
+            OutfitSearch.Budget budget
+    ) {
+        OutfitSearch search = buildSearch(
+                wardrobe, slots,
+                includeHeadwear, includeOuterwear,
+                topwearLayers, preferFullBodywear,
+                pinnedItemIds
+        );
+        if (search == null) {
+            return null;
+        }
+        ForkJoinPool pool = searchPool != null && wardrobe.size >= parallelMinItems ? searchPool : null;
+        return new SuggestionStream(search, candidatePoolSize, pool, budget);
+    }
+
+    private List<OutfitSuggestionDTO> toDTOs(WardrobeFeatures wardrobe, List<OutfitSearch.RankedOutfit> outfits) {
+        return outfits.stream()
+                .map(outfit -> buildDTO(wardrobe, outfit))
+                .collect(Collectors.toList());
     }
 
 //    private List<ClothingItem> filterBySeason(List<ClothingItem> items, String category, String season) {
@@ -136,85 +544,35 @@ public class OutfitGeneratorService {
 //                .collect(Collectors.toList());
 //    }
 
-    private static final Map<String, Map<String, Integer>> STYLE_COMPATIBILITY_SCORES = Map.of(
-            "casual", Map.of(
-                    "casual", 100,
-                    "smart casual", 40,
-                    "sport", 30,
-                    "formal", 10,
-                    "party", 50
-            ),
-            "smart casual", Map.of(
-                    "smart casual", 100,
-                    "casual", 80,
-                    "formal", 70,
-                    "party", 60,
-                    "sport", -50
-            ),
-            "formal", Map.of(
-                    "formal", 100,
-                    "smart casual", 60,
-                    "casual", 30,
-                    "sport", -50,
-                    "party", 50
-            ),
-            "sport", Map.of(
-                    "sport", 100,
-                    "casual", 30,
-                    "formal", -50,
-                    "smart casual", 0,
-                    "party", -50
-            ),
-            "party", Map.of(
-                    "party", 100,
-                    "smart casual", 70,
-                    "casual", 60,
-                    "formal", 20,
-                    "sport", -50
-            )
-    );
-
-    private List<ClothingItem> filterBySeasonAndUsage(List<ClothingItem> items, String category, String season, String context) {
-        return items.stream()
-                .filter(i -> isCategory(i, category) && i.getBaseColor() != null)
-                .filter(i -> seasonRules(i.getSeason(), season, category))
-                .filter(i -> isStyleCompatible(context, i.getUsage()))
-                .collect(Collectors.toList());
+    private boolean passesSeasonAndUsage(WardrobeFeatures wardrobe, int i, int slot, int season, int style) {
+        return seasonRules(wardrobe.season[i], season, slot) && isStyleCompatible(style, wardrobe.usage[i]);
     }
 
-    private boolean isStyleCompatible(String requested, String itemUsage) {
-        if (requested == null || itemUsage == null) return true;
-        requested = requested.toLowerCase();
-        itemUsage = itemUsage.toLowerCase();
+    private boolean isStyleCompatible(int requested, int itemUsage) {
+        if (requested == WardrobeFeatures.NONE || itemUsage == WardrobeFeatures.NONE) return true;
 
-        if (requested.equals("sports")) {
-            return !itemUsage.equals("formal");
+        if (requested == WardrobeFeatures.SPORTS) {
+            return itemUsage != WardrobeFeatures.FORMAL;
         }
-        if (requested.equals("formal")) {
-            return !itemUsage.equals("sports");
+        if (requested == WardrobeFeatures.FORMAL) {
+            return itemUsage != WardrobeFeatures.SPORTS;
         }
         return true; // pentru alte stiluri (casual, streetwear, etc.)
     }
 
-    private List<ClothingItem> filter(List<ClothingItem> items, String category) {
-        return items.stream()
-                .filter(i -> isCategory(i, category) && i.getBaseColor() != null)
-                .collect(Collectors.toList());
-    }
-
-    private boolean seasonRules(String itemSeason, String season, String category) {
-        if (itemSeason == null) return false;
-        switch (season.toLowerCase()) {
-            case "winter":
-                return !itemSeason.equalsIgnoreCase("Summer");
-            case "summer":
-                return !itemSeason.equalsIgnoreCase("Winter");
-            case "spring":
-            case "fall":
-                if ("Outerwear".equalsIgnoreCase(category)) {
-                    return !itemSeason.equalsIgnoreCase("Winter");
-                } else if ("Bottomwear".equalsIgnoreCase(category)) {
-                    return !itemSeason.equalsIgnoreCase("Summer");
+    private boolean seasonRules(int itemSeason, int season, int slot) {
+        if (itemSeason == WardrobeFeatures.NONE) return false;
+        switch (season) {
+            case WardrobeFeatures.WINTER:
+                return itemSeason != WardrobeFeatures.SUMMER;
+            case WardrobeFeatures.SUMMER:
+                return itemSeason != WardrobeFeatures.WINTER;
+            case WardrobeFeatures.SPRING:
+            case WardrobeFeatures.FALL:
+                if (slot == WardrobeFeatures.OUTERWEAR) {
+                    return itemSeason != WardrobeFeatures.WINTER;
+                } else if (slot == WardrobeFeatures.BOTTOMWEAR) {
+                    return itemSeason != WardrobeFeatures.SUMMER;
                 }
                 return true;
             default:
@@ -222,139 +580,229 @@ public class OutfitGeneratorService {
         }
     }
 
-    private List<OutfitSuggestionDTO> buildCombinations(
-            List<ClothingItem> tops,
-            List<ClothingItem> bottoms,
-            List<ClothingItem> footwears,
-            List<ClothingItem> outerwears,
-            List<ClothingItem> headwears,
-            List<ClothingItem> fullbodies,
-            boolean includeOuterwear,
+    /**
+     * Item scores and ranked candidates of every slot for one season and context. They do not
+     * depend on the outfit shape, so requests that only differ in shape can share them.
+     */
+    static final class RankedSlots {
+        /** The rules the items were scored with; the search scores pairs with the same ones. */
+        final ScoringRules rules;
+        final double[] itemScores;
+        /** Indexed by the slot constants of {@link WardrobeFeatures}. */
+        final int[][] candidates = new int[WardrobeFeatures.OTHER_SLOT][];
+
+        RankedSlots(ScoringRules rules, double[] itemScores) {
+            this.rules = rules;
+            this.itemScores = itemScores;
+        }
+    }
+
+    /** @param userId whose feedback weights and wear history apply, or null to rank with the shared rules only */
+    RankedSlots rankSlots(WardrobeFeatures wardrobe, Long userId, String context, String season, Random random) {
+        ScoringRules rules = rulesFor(userId);
+        return rankSlots(wardrobe, rules, daysSinceWorn(userId, wardrobe, rules), context, season, random);
+    }
+
+    private RankedSlots rankSlots(WardrobeFeatures wardrobe, ScoringRules rules, int[] daysSinceWorn,
+                                  String context, String season, Random random) {
+        int requestedSeason = wardrobe.seasonOrdinal(season);
+        int requestedStyle = wardrobe.usageOrdinal(context);
+
+        double[] itemScores = new double[wardrobe.size];
+        for (int i = 0; i < wardrobe.size; i++) {
+            itemScores[i] = rules.itemScore(wardrobe, i, requestedSeason, requestedStyle, daysSinceWorn);
+        }
+        RankedSlots slots = new RankedSlots(rules, itemScores);
+        for (int slot = 0; slot < slots.candidates.length; slot++) {
+            // headwear is not filtered by season or style
+            boolean filtered = slot != WardrobeFeatures.HEADWEAR;
+            slots.candidates[slot] = rankedCandidates(wardrobe, slot, filtered, requestedSeason, requestedStyle,
+                    itemScores, random);
+        }
+        return slots;
+    }
+
+    /**
+     * Lays out the slots of the requested outfit shape and hands them to {@link OutfitSearch}.
+     * Returns null when the wardrobe cannot produce that shape at all.
+     */
+    OutfitSearch buildSearch(
+            WardrobeFeatures wardrobe,
+            RankedSlots rankedSlots,
             boolean includeHeadwear,
+            boolean includeOuterwear,
+            int topwearLayers,
             boolean preferFullBodywear,
-            int topwearLayers
+            List<Long> pinnedItemIds
     ) {
-        List<OutfitSuggestionDTO> combos = new ArrayList<>();
-        if (!preferFullBodywear && (bottoms.isEmpty() || footwears.isEmpty())) return combos;
-        if (includeOuterwear && outerwears.stream().allMatch(Objects::isNull)) return combos;
-        if (includeHeadwear && headwears.stream().allMatch(Objects::isNull)) return combos;
-
-        if (preferFullBodywear && !fullbodies.isEmpty()) {
-            for (ClothingItem fb : fullbodies) {
-                for (ClothingItem fw : footwears) {
-                    for (ClothingItem o : includeOuterwear ? outerwears : Collections.<ClothingItem>singletonList(null)) {
-                        for (ClothingItem hw : includeHeadwear ? headwears : Collections.<ClothingItem>singletonList(null)) {
-                            combos.add(buildDTO(null, null, null, fw, o, hw, fb));
-                        }
-                    }
-                }
-            }
-        } else if (topwearLayers == 1) {
-            for (ClothingItem t : tops) {
-                for (ClothingItem b : bottoms) {
-                    for (ClothingItem fw : footwears) {
-                        for (ClothingItem o : includeOuterwear ? outerwears : Collections.<ClothingItem>singletonList(null)) {
-                            for (ClothingItem hw : includeHeadwear ? headwears : Collections.<ClothingItem>singletonList(null)) {
-                                combos.add(buildDTO(t, null, b, fw, o, hw, null));
-                            }
-                        }
-                    }
-                }
-            }
+        List<List<Integer>> pinned = pinnedBySlot(wardrobe, pinnedItemIds);
+        List<Integer> pinnedTops = pinned.get(WardrobeFeatures.TOPWEAR);
+        boolean pinnedSeparates = !pinnedTops.isEmpty() || !pinned.get(WardrobeFeatures.BOTTOMWEAR).isEmpty();
+        boolean pinnedFullBody = !pinned.get(WardrobeFeatures.FULLBODYWEAR).isEmpty();
+        if (pinnedSeparates && pinnedFullBody) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A full-body item cannot be pinned together with tops or bottoms");
+        }
+        // pinned items decide the outfit shape where the request flags disagree
+        boolean fullBody = pinnedFullBody || (preferFullBodywear && !pinnedSeparates);
+        int layers = pinnedTops.size() == 2 ? 2 : topwearLayers;
+        boolean outerwear = includeOuterwear || !pinned.get(WardrobeFeatures.OUTERWEAR).isEmpty();
+        boolean headwear = includeHeadwear || !pinned.get(WardrobeFeatures.HEADWEAR).isEmpty();
+
+        List<Integer> positions = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        if (fullBody) {
+            positions.add(OutfitSearch.FULLBODY);
+            slots.add(WardrobeFeatures.FULLBODYWEAR);
+        } else if (layers == 1) {
+            positions.add(OutfitSearch.TOP1);
+            slots.add(WardrobeFeatures.TOPWEAR);
+            positions.add(OutfitSearch.BOTTOM);
+            slots.add(WardrobeFeatures.BOTTOMWEAR);
         } else {
-            for (int i = 0; i < tops.size(); i++) {
-                for (int j = i + 1; j < tops.size(); j++) {
-                    ClothingItem t1 = tops.get(i), t2 = tops.get(j);
-                    for (ClothingItem b : bottoms) {
-                        for (ClothingItem fw : footwears) {
-                            for (ClothingItem o : includeOuterwear ? outerwears : Collections.<ClothingItem>singletonList(null)) {
-                                for (ClothingItem hw : includeHeadwear ? headwears : Collections.<ClothingItem>singletonList(null)) {
-                                    combos.add(buildDTO(t1, t2, b, fw, o, hw, null));
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+            positions.add(OutfitSearch.TOP1);
+            slots.add(WardrobeFeatures.TOPWEAR);
+            positions.add(OutfitSearch.TOP2);
+            slots.add(WardrobeFeatures.TOPWEAR);
+            positions.add(OutfitSearch.BOTTOM);
+            slots.add(WardrobeFeatures.BOTTOMWEAR);
+        }
+        positions.add(OutfitSearch.FOOTWEAR);
+        slots.add(WardrobeFeatures.FOOTWEAR);
+        if (outerwear) {
+            positions.add(OutfitSearch.OUTERWEAR);
+            slots.add(WardrobeFeatures.OUTERWEAR);
+        }
+        if (headwear) {
+            positions.add(OutfitSearch.HEADWEAR);
+            slots.add(WardrobeFeatures.HEADWEAR);
+        }
+        if (pinnedTops.size() > (fullBody ? 0 : layers)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "More tops pinned than the outfit has layers");
         }
-        return combos;
-    }
-    private boolean isTooSimilar(OutfitSuggestionDTO a, OutfitSuggestionDTO b) {
-        int diffCount = 0;
-        if (!Objects.equals(a.getTop1Id(), b.getTop1Id())) diffCount++;
-        if (!Objects.equals(a.getTop2Id(), b.getTop2Id())) diffCount++;
-        if (!Objects.equals(a.getBottomId(), b.getBottomId())) diffCount++;
-        if (!Objects.equals(a.getFootwearId(), b.getFootwearId())) diffCount++;
-        if (!Objects.equals(a.getOuterwearId(), b.getOuterwearId())) diffCount++;
-        if (!Objects.equals(a.getHeadwearId(), b.getHeadwearId())) diffCount++;
-        if (!Objects.equals(a.getFullBodywearId(), b.getFullBodywearId())) diffCount++;
-        return diffCount <= 1; // consideră că sunt prea similare dacă diferă prin cel mult 1 articol
-    }
 
+        int depth = positions.size();
+        int[] slotPositions = new int[depth];
+        int[][] candidates = new int[depth][];
+        double[][] candidateScores = new double[depth][];
+        boolean[] ascending = new boolean[depth];
+        for (int d = 0; d < depth; d++) {
+            int position = positions.get(d);
+            slotPositions[d] = position;
+            ascending[d] = position == OutfitSearch.TOP2 && pinnedTops.isEmpty();
+            if (ascending[d]) {
+                candidates[d] = candidates[d - 1];
+                candidateScores[d] = candidateScores[d - 1];
+                continue;
+            }
+            candidates[d] = slotCandidates(rankedSlots, slots.get(d), position, pinned);
+            candidateScores[d] = new double[candidates[d].length];
+            for (int p = 0; p < candidates[d].length; p++) {
+                candidateScores[d][p] = rankedSlots.itemScores[candidates[d][p]];
+            }
+            if (candidates[d].length == 0) return null;
+        }
 
-    private OutfitSuggestionDTO buildDTO(
-            ClothingItem t1, ClothingItem t2, ClothingItem b,
-            ClothingItem fw, ClothingItem o, ClothingItem hw, ClothingItem fb
-    ) {
-        return new OutfitSuggestionDTO(
-                t1 != null ? t1.getId() : null,
-                t2 != null ? t2.getId() : null,
-                b  != null ? b.getId()  : null,
-                fw != null ? fw.getId() : null,
-                o  != null ? o.getId()  : null,
-                hw != null ? hw.getId() : null,
-                fb != null ? fb.getId() : null,
-                0.0
-        );
+        ScoringRules rules = rankedSlots.rules;
+        return new OutfitSearch(slotPositions, candidates, candidateScores, ascending, rules.baseScore,
+                (a, b) -> rules.pairPenalty(wardrobe, a, b));
     }
 
-    private double calcScore(OutfitSuggestionDTO dto, String context, String season) {
-        double score = 100;
-        List<Long> ids = Arrays.asList(
-                dto.getTop1Id(), dto.getTop2Id(), dto.getBottomId(),
-                dto.getFootwearId(), dto.getOuterwearId(), dto.getHeadwearId(), dto.getFullBodywearId()
-        ).stream().filter(Objects::nonNull).collect(Collectors.toList());
-        for (int i = 0; i < ids.size(); i++) {
-            String c1 = Optional.ofNullable(clothingItemRepository.findById(ids.get(i)).orElseThrow().getBaseColor()).orElse("");
-            for (int j = i + 1; j < ids.size(); j++) {
-                String c2 = Optional.ofNullable(clothingItemRepository.findById(ids.get(j)).orElseThrow().getBaseColor()).orElse("");
-                score -= colorDistance(c1, c2) / 3.0;
+    /**
+     * Candidates of one outfit position: the pinned item when its slot is pinned, otherwise the
+     * ranked slot list. With a single pinned top, the other layer may be any other top.
+     */
+    private int[] slotCandidates(RankedSlots rankedSlots, int slot, int position, List<List<Integer>> pinned) {
+        List<Integer> pinnedInSlot = pinned.get(slot);
+        if (pinnedInSlot.isEmpty()) {
+            return rankedSlots.candidates[slot];
+        }
+        if (position == OutfitSearch.TOP2) {
+            if (pinnedInSlot.size() == 2) {
+                return new int[]{pinnedInSlot.get(1)};
             }
+            int pinnedTop = pinnedInSlot.get(0);
+            return Arrays.stream(rankedSlots.candidates[slot])
+                    .filter(i -> i != pinnedTop)
+                    .toArray();
         }
-        for (Long id : ids) {
-            ClothingItem item = clothingItemRepository.findById(id).orElse(null);
-            if (item != null) {
-                if (season.equalsIgnoreCase(item.getSeason())) score += 10;
-                String itemStyle = Optional.ofNullable(item.getUsage()).orElse("").toLowerCase();
-                String requestedStyle = Optional.ofNullable(context).orElse("").toLowerCase();
-
-                int bonus = Optional.ofNullable(STYLE_COMPATIBILITY_SCORES.get(requestedStyle))
-                        .map(map -> map.getOrDefault(itemStyle, 0))
-                        .orElse(0);
+        return new int[]{pinnedInSlot.get(0)};
+    }
 
-                score += bonus;
+    /** Wardrobe indices of the pinned items, per slot. Pinned items skip the season and style filters. */
+    private List<List<Integer>> pinnedBySlot(WardrobeFeatures wardrobe, List<Long> pinnedItemIds) {
+        List<List<Integer>> pinned = new ArrayList<>();
+        for (int slot = 0; slot < WardrobeFeatures.OTHER_SLOT; slot++) {
+            pinned.add(new ArrayList<>());
+        }
+        if (pinnedItemIds == null) return pinned;
 
+        for (Long id : pinnedItemIds) {
+            int index = id == null ? -1 : wardrobe.indexOf(id);
+            if (index < 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Pinned item " + id + " is not in the available wardrobe");
+            }
+            int slot = wardrobe.slot[index];
+            if (slot == WardrobeFeatures.OTHER_SLOT) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Pinned item " + id + " does not belong to an outfit slot");
             }
+            List<Integer> inSlot = pinned.get(slot);
+            if (inSlot.contains(index)) continue;
+            if (inSlot.size() == (slot == WardrobeFeatures.TOPWEAR ? 2 : 1)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Too many pinned items for one slot");
+            }
+            inSlot.add(index);
         }
-        return score;
+        return pinned;
     }
 
-    private double colorDistance(String n1, String n2) {
-        try {
-            Color c1 = Color.decode(COLOR_NAME_TO_HEX.getOrDefault(n1.trim(), "#000000"));
-            Color c2 = Color.decode(COLOR_NAME_TO_HEX.getOrDefault(n2.trim(), "#000000"));
-            int dr = c1.getRed() - c2.getRed();
-            int dg = c1.getGreen() - c2.getGreen();
-            int db = c1.getBlue() - c2.getBlue();
-            return Math.sqrt(dr * dr + dg * dg + db * db);
+    /** The shared scoring rules with the user's feedback weights folded in. */
+    private ScoringRules rulesFor(Long userId) {
+        return scoringRulesService.current()
+                .personalized(userId != null ? outfitFeedbackService.weights(userId) : null);
+    }
 
-        } catch (Exception e) {
-            return 999;
+    /** One query for the whole wardrobe; null when there is no user or the rules ignore recent wear. */
+    private int[] daysSinceWorn(Long userId, WardrobeFeatures wardrobe, ScoringRules rules) {
+        return userId != null ? wearHistoryService.daysSinceWorn(userId, wardrobe, rules.recentWearDays()) : null;
+    }
+
+    /**
+     * Items eligible for a slot, best item score first. They are shuffled before the
+     * (stable) sort so that equally scored items come out in random order.
+     */
+    private int[] rankedCandidates(WardrobeFeatures wardrobe, int slot, boolean filtered,
+                                   int season, int style, double[] itemScores, Random random) {
+        List<Integer> eligible = new ArrayList<>();
+        for (int i = 0; i < wardrobe.size; i++) {
+            if (wardrobe.slot[i] != slot || !wardrobe.hasColor[i]) continue;
+            if (filtered && !passesSeasonAndUsage(wardrobe, i, slot, season, style)) continue;
+            eligible.add(i);
         }
+        Collections.shuffle(eligible, random);
+        eligible.sort(Comparator.comparingDouble((Integer i) -> -itemScores[i]));
+        return eligible.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private OutfitSuggestionDTO buildDTO(WardrobeFeatures wardrobe, OutfitSearch.RankedOutfit outfit) {
+        return new OutfitSuggestionDTO(
+                idAt(wardrobe, outfit, OutfitSearch.TOP1),
+                idAt(wardrobe, outfit, OutfitSearch.TOP2),
+                idAt(wardrobe, outfit, OutfitSearch.BOTTOM),
+                idAt(wardrobe, outfit, OutfitSearch.FOOTWEAR),
+                idAt(wardrobe, outfit, OutfitSearch.OUTERWEAR),
+                idAt(wardrobe, outfit, OutfitSearch.HEADWEAR),
+                idAt(wardrobe, outfit, OutfitSearch.FULLBODY),
+                outfit.score
+        );
     }
 
-    private boolean isCategory(ClothingItem item, String category) {
-        return item.getCategory() != null
-                && category.equalsIgnoreCase(item.getCategory().getName());
+    private Long idAt(WardrobeFeatures wardrobe, OutfitSearch.RankedOutfit outfit, int position) {
+        int index = outfit.items[position];
+        return index >= 0 ? wardrobe.ids[index] : null;
     }
 }
@@ -0,0 +1,160 @@
+package org.example.outfitcheck.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Picks one outfit per day from a shared pool of ranked outfits, maximizing the total score.
+ *
+ * Constraints: an outfit is used at most once, no item is worn on more than {@code maxItemUses}
+ * days and the same footwear is never worn two days in a row. The plan starts greedy (best
+ * feasible outfit day by day) and is then improved by local search until nothing improves or
+ * the deadline passes: replacing a single day, and re-filling two days at once, which frees the
+ * items one greedy pick was blocking for another day.
+ */
+final class OutfitPlanner {
+
+    private static final int NONE = -1;
+
+    private final List<OutfitSearch.RankedOutfit> pool;
+    private final int days;
+    private final int maxItemUses;
+    private final long deadline;
+
+    /** Pool index per day, or NONE. */
+    private final int[] plan;
+    private final boolean[] taken;
+    private final int[] uses;
+
+    /**
+     * @param pool      outfits ranked best first
+     * @param itemCount size of the item index space (the wardrobe)
+     */
+    OutfitPlanner(List<OutfitSearch.RankedOutfit> pool, int itemCount, int days, int maxItemUses, long deadlineNanos) {
+        this.pool = pool;
+        this.days = days;
+        this.maxItemUses = maxItemUses;
+        this.deadline = deadlineNanos;
+        this.plan = new int[days];
+        this.taken = new boolean[pool.size()];
+        this.uses = new int[itemCount];
+        Arrays.fill(plan, NONE);
+    }
+
+    /** Outfit per day; null for a day no remaining outfit fits. */
+    OutfitSearch.RankedOutfit[] solve() {
+        for (int day = 0; day < days; day++) {
+            assign(day, bestFit(day));
+        }
+        boolean improved = true;
+        while (improved && System.nanoTime() - deadline < 0) {
+            improved = improveSingleDays() | improveDayPairs();
+        }
+
+        OutfitSearch.RankedOutfit[] result = new OutfitSearch.RankedOutfit[days];
+        for (int day = 0; day < days; day++) {
+            result[day] = plan[day] == NONE ? null : pool.get(plan[day]);
+        }
+        return result;
+    }
+
+    private boolean improveSingleDays() {
+        boolean improved = false;
+        for (int day = 0; day < days; day++) {
+            int current = plan[day];
+            unassign(day);
+            int best = bestFit(day);
+            assign(day, best);
+            if (score(best) > score(current)) improved = true;
+        }
+        return improved;
+    }
+
+    private boolean improveDayPairs() {
+        boolean improved = false;
+        for (int first = 0; first < days; first++) {
+            for (int second = first + 1; second < days; second++) {
+                if (System.nanoTime() - deadline >= 0) return improved;
+                int keptFirst = plan[first];
+                int keptSecond = plan[second];
+                double before = score(keptFirst) + score(keptSecond);
+                unassign(first);
+                unassign(second);
+
+                // refill in both orders, keep the better one
+                assign(second, bestFit(second));
+                assign(first, bestFit(first));
+                double secondFirst = score(plan[first]) + score(plan[second]);
+                int[] secondFirstPicks = {plan[first], plan[second]};
+                unassign(first);
+                unassign(second);
+                assign(first, bestFit(first));
+                assign(second, bestFit(second));
+                double firstFirst = score(plan[first]) + score(plan[second]);
+
+                if (Math.max(firstFirst, secondFirst) > before + 1e-9) {
+                    if (secondFirst > firstFirst) {
+                        unassign(first);
+                        unassign(second);
+                        assign(first, secondFirstPicks[0]);
+                        assign(second, secondFirstPicks[1]);
+                    }
+                    improved = true;
+                } else {
+                    unassign(first);
+                    unassign(second);
+                    assign(first, keptFirst);
+                    assign(second, keptSecond);
+                }
+            }
+        }
+        return improved;
+    }
+
+    /** Best outfit that fits an empty {@code day}, or NONE. The pool is ranked, so the first fit wins. */
+    private int bestFit(int day) {
+        for (int candidate = 0; candidate < pool.size(); candidate++) {
+            if (fits(day, candidate)) return candidate;
+        }
+        return NONE;
+    }
+
+    private boolean fits(int day, int candidate) {
+        if (taken[candidate]) return false;
+        int[] items = pool.get(candidate).items;
+        for (int item : items) {
+            if (item >= 0 && uses[item] >= maxItemUses) return false;
+        }
+        int footwear = items[OutfitSearch.FOOTWEAR];
+        return !(day > 0 && footwearOf(day - 1) == footwear)
+                && !(day + 1 < days && footwearOf(day + 1) == footwear);
+    }
+
+    private int footwearOf(int day) {
+        return plan[day] == NONE ? NONE : pool.get(plan[day]).items[OutfitSearch.FOOTWEAR];
+    }
+
+    private void assign(int day, int candidate) {
+        plan[day] = candidate;
+        if (candidate == NONE) return;
+        taken[candidate] = true;
+        for (int item : pool.get(candidate).items) {
+            if (item >= 0) uses[item]++;
+        }
+    }
+
+    private void unassign(int day) {
+        int candidate = plan[day];
+        plan[day] = NONE;
+        if (candidate == NONE) return;
+        taken[candidate] = false;
+        for (int item : pool.get(candidate).items) {
+            if (item >= 0) uses[item]--;
+        }
+    }
+
+    /** Score of a pool entry; an empty day counts as far below any outfit. */
+    private double score(int candidate) {
+        return candidate == NONE ? -1e9 : pool.get(candidate).score;
+    }
+}
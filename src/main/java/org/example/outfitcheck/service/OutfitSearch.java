@@ -0,0 +1,533 @@
+package org.example.outfitcheck.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Branch-and-bound search over outfit slots.
+ *
+ * Every slot holds candidate item indices sorted by their individual score (best first).
+ * The search walks the slots depth-first and keeps only the best {@code poolSize} complete
+ * outfits in a bounded heap. Pair penalties are never negative, so the score of a partial
+ * outfit plus the best item score of every remaining slot is an upper bound for all outfits
+ * below it; subtrees whose bound cannot beat the worst pooled outfit are skipped.
+ *
+ * Outfits are ranked by score (descending) and then by their candidate positions, which is
+ * also the order the depth-first walk discovers them in. That total order lets a caller
+ * resume after the last outfit it has seen ("next tier") without keeping anything else.
+ */
+final class OutfitSearch {
+
+    static final int TOP1 = 0;
+    static final int TOP2 = 1;
+    static final int BOTTOM = 2;
+    static final int FOOTWEAR = 3;
+    static final int OUTERWEAR = 4;
+    static final int HEADWEAR = 5;
+    static final int FULLBODY = 6;
+    static final int POSITIONS = 7;
+
+    private static final double EPSILON = 1e-9;
+
+    interface PairPenalty {
+        /** Non-negative penalty for wearing items {@code a} and {@code b} together. */
+        double between(int a, int b);
+    }
+
+    /** One complete outfit: item index per position (-1 when empty) and its ranking key. */
+    static final class RankedOutfit {
+        final int[] items;
+        final int[] key;
+        final double score;
+
+        RankedOutfit(int[] items, int[] key, double score) {
+            this.items = items;
+            this.key = key;
+            this.score = score;
+        }
+    }
+
+    /** Best first. */
+    static final Comparator<RankedOutfit> RANKING = (a, b) -> {
+        int byScore = Double.compare(b.score, a.score);
+        return byScore != 0 ? byScore : Arrays.compare(a.key, b.key);
+    };
+
+    /** Result of one search pass. */
+    static final class Tier {
+        final List<RankedOutfit> ranked;
+        final boolean complete;
+        /** False when the budget ran out: {@code ranked} is then the best found, not the true top. */
+        final boolean exhaustive;
+
+        Tier(List<RankedOutfit> ranked, boolean complete) {
+            this(ranked, complete, true);
+        }
+
+        Tier(List<RankedOutfit> ranked, boolean complete, boolean exhaustive) {
+            this.ranked = ranked;
+            this.complete = complete;
+            this.exhaustive = exhaustive;
+        }
+    }
+
+    /**
+     * Time and/or work limit shared by every pass (and worker) of one request. Walks charge it
+     * in batches of {@link #CHARGE_INTERVAL} visited nodes, so the clock is read rarely.
+     */
+    static final class Budget {
+        static final int CHARGE_INTERVAL = 1024;
+
+        private final long deadline;
+        private final long maxNodes;
+        private final AtomicLong nodes = new AtomicLong();
+        private volatile boolean exhausted;
+
+        private Budget(long deadline, long maxNodes) {
+            this.deadline = deadline;
+            this.maxNodes = maxNodes;
+        }
+
+        /** A budget starting now, or null when neither limit is given. */
+        static Budget of(Long millis, Long maxNodes) {
+            if (millis == null && maxNodes == null) return null;
+            long deadline = millis != null
+                    ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis))
+                    : Long.MAX_VALUE;
+            return new Budget(deadline, maxNodes != null ? Math.max(0, maxNodes) : Long.MAX_VALUE);
+        }
+
+        boolean isExhausted() {
+            return exhausted;
+        }
+
+        /** Records {@code visited} more nodes; true once the budget has run out. */
+        private boolean charge(long visited) {
+            if (exhausted) return true;
+            if (nodes.addAndGet(visited) > maxNodes || System.nanoTime() - deadline > 0) {
+                exhausted = true;
+            }
+            return exhausted;
+        }
+    }
+
+    private final int[] positions;
+    private final int[][] candidates;
+    private final double[][] itemScores;
+    private final boolean[] ascending;
+    private final double baseScore;
+    private final PairPenalty pairPenalty;
+    private final double[] suffixMax;
+
+    /**
+     * @param positions  outfit position filled at each depth (TOP1, BOTTOM, ...)
+     * @param candidates item indices per depth, sorted by {@code itemScores} descending
+     * @param itemScores individual score of each candidate, aligned with {@code candidates}
+     * @param ascending  true when a depth reuses the previous depth's list and must pick a later entry
+     */
+    OutfitSearch(int[] positions, int[][] candidates, double[][] itemScores, boolean[] ascending,
+                 double baseScore, PairPenalty pairPenalty) {
+        this.positions = positions;
+        this.candidates = candidates;
+        this.itemScores = itemScores;
+        this.ascending = ascending;
+        this.baseScore = baseScore;
+        this.pairPenalty = pairPenalty;
+
+        int depth = positions.length;
+        this.suffixMax = new double[depth + 1];
+        for (int d = depth - 1; d >= 0; d--) {
+            double best = itemScores[d].length > (ascending[d] ? 1 : 0)
+                    ? itemScores[d][ascending[d] ? 1 : 0]
+                    : Double.NEGATIVE_INFINITY;
+            suffixMax[d] = suffixMax[d + 1] + best;
+        }
+    }
+
+    boolean isEmpty() {
+        return suffixMax[0] == Double.NEGATIVE_INFINITY;
+    }
+
+    /** Depths with a choice, i.e. more than one candidate. */
+    int freeDepths() {
+        int free = 0;
+        for (int[] slotCandidates : candidates) {
+            if (slotCandidates.length > 1) free++;
+        }
+        return free;
+    }
+
+    /**
+     * Returns the best {@code poolSize} outfits ranked strictly after {@code after}
+     * (or from the top when {@code after} is null).
+     */
+    Tier run(RankedOutfit after, int poolSize) {
+        return run(after, poolSize, null, null);
+    }
+
+    /**
+     * Same as {@link #run(RankedOutfit, int)}; with a pool the anchor slot (the first one) is
+     * split into ranges that are searched in parallel, each with its own bounded heap. The
+     * heaps share the best proven cut-off so that every worker prunes as hard as the best one.
+     *
+     * With a {@code budget} the walk stops when it runs out and returns the best outfits found
+     * so far. Candidates are tried best first, so those are the greedy picks and their neighbours.
+     */
+    Tier run(RankedOutfit after, int poolSize, ForkJoinPool forkJoinPool, Budget budget) {
+        if (isEmpty()) {
+            return new Tier(List.of(), true);
+        }
+        List<RankedOutfit> ranked;
+        if (forkJoinPool == null || candidates[0].length < 2) {
+            Walk walk = new Walk(after, poolSize, null, budget, 0, candidates[0].length);
+            walk.probeAnchors();
+            walk.descend(0, baseScore);
+            walk.chargeRest();
+            ranked = walk.ranked();
+        } else {
+            int anchors = candidates[0].length;
+            int grain = Math.max(1, anchors / (forkJoinPool.getParallelism() * 4));
+            AtomicLong cutoff = new AtomicLong(Double.doubleToLongBits(Double.NEGATIVE_INFINITY));
+            ranked = forkJoinPool.invoke(new AnchorRange(after, poolSize, cutoff, budget, 0, anchors, grain));
+        }
+        boolean exhaustive = budget == null || !budget.isExhausted();
+        return new Tier(ranked, exhaustive && ranked.size() < poolSize, exhaustive);
+    }
+
+    /**
+     * Serial {@link #run(RankedOutfit, int)} from the top that reports the ranking as it becomes
+     * final. Anchors are searched in candidate order; once an anchor is done, no outfit under a
+     * later anchor can score above that anchor's bound, so every pooled outfit above it already
+     * has its final rank. Each call of {@code proven} continues the ranking where the last ended.
+     */
+    Tier runProgressive(int poolSize, Consumer<List<RankedOutfit>> proven) {
+        if (isEmpty()) {
+            return new Tier(List.of(), true);
+        }
+        int anchors = candidates[0].length;
+        Walk walk = new Walk(null, poolSize, null, null, 0, 0);
+        List<RankedOutfit> ranked = List.of();
+        int reported = 0;
+        for (int a = 0; a < anchors; a++) {
+            walk.anchorFrom = a;
+            walk.anchorTo = a + 1;
+            walk.descend(0, baseScore);
+
+            double nextBound = a + 1 < anchors
+                    ? baseScore + itemScores[0][a + 1] + walk.restBound(0, a + 1)
+                    : Double.NEGATIVE_INFINITY;
+            if (walk.cannotEnter(nextBound)) {
+                // the remaining anchors would all be pruned
+                nextBound = Double.NEGATIVE_INFINITY;
+            }
+            ranked = walk.ranked();
+            int provenCount = reported;
+            // ties wait: an equal score under a later anchor ranks after, but rounding may differ
+            while (provenCount < ranked.size() && ranked.get(provenCount).score > nextBound + EPSILON) {
+                provenCount++;
+            }
+            if (provenCount > reported) {
+                proven.accept(ranked.subList(reported, provenCount));
+                reported = provenCount;
+            }
+            if (nextBound == Double.NEGATIVE_INFINITY) break;
+        }
+        return new Tier(ranked, ranked.size() < poolSize);
+    }
+
+    private static List<RankedOutfit> merge(List<RankedOutfit> a, List<RankedOutfit> b, int poolSize) {
+        List<RankedOutfit> merged = new ArrayList<>(Math.min(poolSize, a.size() + b.size()));
+        int i = 0, j = 0;
+        while (merged.size() < poolSize && (i < a.size() || j < b.size())) {
+            if (j == b.size() || (i < a.size() && RANKING.compare(a.get(i), b.get(j)) <= 0)) {
+                merged.add(a.get(i++));
+            } else {
+                merged.add(b.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    private final class AnchorRange extends RecursiveTask<List<RankedOutfit>> {
+        private final RankedOutfit after;
+        private final int poolSize;
+        private final AtomicLong cutoff;
+        private final Budget budget;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        AnchorRange(RankedOutfit after, int poolSize, AtomicLong cutoff, Budget budget, int from, int to, int grain) {
+            this.after = after;
+            this.poolSize = poolSize;
+            this.cutoff = cutoff;
+            this.budget = budget;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected List<RankedOutfit> compute() {
+            if (to - from <= grain) {
+                Walk walk = new Walk(after, poolSize, cutoff, budget, from, to);
+                walk.probeAnchors();
+                walk.descend(0, baseScore);
+                walk.chargeRest();
+                return walk.ranked();
+            }
+            int mid = (from + to) >>> 1;
+            AnchorRange left = new AnchorRange(after, poolSize, cutoff, budget, from, mid, grain);
+            AnchorRange right = new AnchorRange(after, poolSize, cutoff, budget, mid, to, grain);
+            left.fork();
+            List<RankedOutfit> rightRanked = right.compute();
+            return merge(left.join(), rightRanked, poolSize);
+        }
+    }
+
+    private final class Walk {
+        private final RankedOutfit after;
+        private final int poolSize;
+        private final PriorityQueue<RankedOutfit> pool;
+        private final int[] chosenPos;
+        private final int[] chosenItem;
+        /** Score every outfit must beat, proven by some (possibly other) worker's full heap. */
+        private final AtomicLong sharedCutoff;
+        private final Budget budget;
+        private int anchorFrom;
+        private int anchorTo;
+        /** Nodes visited since the budget was last charged. */
+        private int uncharged;
+        private boolean stopped;
+        /** Greedy outfits of a budgeted walk; the walk finds them again unless they are pruned. */
+        private final List<RankedOutfit> probes = new ArrayList<>();
+
+        Walk(RankedOutfit after, int poolSize, AtomicLong sharedCutoff, Budget budget, int anchorFrom, int anchorTo) {
+            this.after = after;
+            this.poolSize = poolSize;
+            this.sharedCutoff = sharedCutoff;
+            this.budget = budget;
+            this.anchorFrom = anchorFrom;
+            this.anchorTo = anchorTo;
+            this.pool = new PriorityQueue<>(poolSize + 1, RANKING.reversed());
+            this.chosenPos = new int[positions.length];
+            this.chosenItem = new int[positions.length];
+        }
+
+        void descend(int depth, double partial) {
+            if (depth == positions.length) {
+                offer(partial);
+                return;
+            }
+            int[] cands = candidates[depth];
+            double[] scores = itemScores[depth];
+            int start = depth == 0 ? anchorFrom : ascending[depth] ? chosenPos[depth - 1] + 1 : 0;
+            int end = depth == 0 ? anchorTo : cands.length;
+            if (budget != null && depth > 0) {
+                descendBestFitFirst(depth, partial, start, end);
+                return;
+            }
+
+            for (int p = start; p < end; p++) {
+                double withItem = partial + scores[p];
+                double bound = withItem + restBound(depth, p);
+                // candidates are sorted, so nothing later in this slot can do better
+                if (cannotEnter(bound)) break;
+
+                int item = cands[p];
+                for (int d = 0; d < depth; d++) {
+                    withItem -= pairPenalty.between(chosenItem[d], item);
+                }
+                if (cannotEnter(withItem + restBound(depth, p))) continue;
+
+                chosenPos[depth] = p;
+                chosenItem[depth] = item;
+                descend(depth + 1, withItem);
+            }
+        }
+
+        /**
+         * Budgeted variant of the loop in {@link #descend}: tries the items that fit the partial
+         * outfit best (item score minus pair penalties) first, so that good complete outfits
+         * turn up early when the budget may cut the walk short. Same outfits, same pruning.
+         */
+        private void descendBestFitFirst(int depth, double partial, int start, int end) {
+            int[] cands = candidates[depth];
+            double[] scores = itemScores[depth];
+            // with a fixed bound for the later slots, a worse fit can never enter after a better one fails
+            boolean fixedRest = depth + 1 == positions.length || !ascending[depth + 1];
+
+            List<Integer> fits = new ArrayList<>();
+            double[] withItem = new double[end];
+            for (int p = start; p < end; p++) {
+                if (cannotEnter(partial + scores[p] + restBound(depth, p))) break;
+                double value = partial + scores[p];
+                for (int d = 0; d < depth; d++) {
+                    value -= pairPenalty.between(chosenItem[d], cands[p]);
+                }
+                withItem[p] = value;
+                fits.add(p);
+            }
+            fits.sort((a, b) -> Double.compare(withItem[b], withItem[a]));
+
+            for (int p : fits) {
+                if (!spend()) return;
+                if (cannotEnter(withItem[p] + restBound(depth, p))) {
+                    if (fixedRest) break;
+                    continue;
+                }
+                chosenPos[depth] = p;
+                chosenItem[depth] = cands[p];
+                descend(depth + 1, withItem[p]);
+            }
+        }
+
+        /**
+         * With a budget, completes every anchor of this walk greedily (best fitting item per slot)
+         * before the exhaustive walk starts. A walk cut short inside the first anchors still
+         * returns a good outfit for every anchor instead of variations of a single one.
+         */
+        void probeAnchors() {
+            if (budget == null) return;
+            for (int anchor = anchorFrom; anchor < anchorTo && !stopped; anchor++) {
+                probe(anchor);
+            }
+        }
+
+        private void probe(int anchor) {
+            // the first probe always completes, so even a spent budget yields an answer
+            boolean mustFinish = anchor == anchorFrom;
+            chosenPos[0] = anchor;
+            chosenItem[0] = candidates[0][anchor];
+            double value = baseScore + itemScores[0][anchor];
+            for (int depth = 1; depth < positions.length; depth++) {
+                int[] cands = candidates[depth];
+                double[] scores = itemScores[depth];
+                int best = -1;
+                double bestValue = Double.NEGATIVE_INFINITY;
+                for (int p = ascending[depth] ? chosenPos[depth - 1] + 1 : 0; p < cands.length; p++) {
+                    if (!spend() && !mustFinish) return;
+                    double withItem = value + scores[p];
+                    for (int d = 0; d < depth; d++) {
+                        withItem -= pairPenalty.between(chosenItem[d], cands[p]);
+                    }
+                    if (withItem > bestValue) {
+                        best = p;
+                        bestValue = withItem;
+                    }
+                }
+                if (best < 0) return;
+                chosenPos[depth] = best;
+                chosenItem[depth] = cands[best];
+                value = bestValue;
+            }
+            if (isAfterFrontier(chosenPos, value)) {
+                probes.add(current(value));
+            }
+        }
+
+        /** Counts one visited node against the budget; false once the walk has to stop. */
+        private boolean spend() {
+            if (stopped) return false;
+            if (++uncharged == Budget.CHARGE_INTERVAL) {
+                stopped = budget.charge(uncharged);
+                uncharged = 0;
+            }
+            return !stopped;
+        }
+
+        void chargeRest() {
+            if (budget != null && !stopped && uncharged > 0) {
+                budget.charge(uncharged);
+            }
+            uncharged = 0;
+        }
+
+        /** Best possible contribution of the slots after {@code depth}, given position {@code p} there. */
+        private double restBound(int depth, int p) {
+            int next = depth + 1;
+            if (next == positions.length || !ascending[next]) {
+                return suffixMax[next];
+            }
+            double[] nextScores = itemScores[next];
+            if (p + 1 >= nextScores.length) return Double.NEGATIVE_INFINITY;
+            return nextScores[p + 1] + suffixMax[next + 1];
+        }
+
+        private boolean cannotEnter(double bound) {
+            if (bound == Double.NEGATIVE_INFINITY) return true;
+            if (sharedCutoff != null && bound <= Double.longBitsToDouble(sharedCutoff.get()) - EPSILON) return true;
+            return pool.size() >= poolSize && bound <= pool.peek().score - EPSILON;
+        }
+
+        private void offer(double score) {
+            if (!isAfterFrontier(chosenPos, score)) {
+                return;
+            }
+            if (pool.size() >= poolSize) {
+                RankedOutfit worst = pool.peek();
+                int byScore = Double.compare(score, worst.score);
+                if (byScore < 0 || (byScore == 0 && Arrays.compare(chosenPos, worst.key) > 0)) {
+                    return;
+                }
+            }
+            pool.add(current(score));
+            if (pool.size() > poolSize) {
+                pool.poll();
+            }
+            if (sharedCutoff != null && pool.size() >= poolSize) {
+                raiseCutoff(pool.peek().score);
+            }
+        }
+
+        private boolean isAfterFrontier(int[] key, double score) {
+            if (after == null) return true;
+            int vsFrontier = Double.compare(after.score, score);
+            return vsFrontier > 0 || (vsFrontier == 0 && Arrays.compare(key, after.key) > 0);
+        }
+
+        /** The outfit currently chosen at every depth. */
+        private RankedOutfit current(double score) {
+            int[] items = new int[POSITIONS];
+            Arrays.fill(items, -1);
+            for (int d = 0; d < positions.length; d++) {
+                items[positions[d]] = chosenItem[d];
+            }
+            return new RankedOutfit(items, Arrays.copyOf(chosenPos, chosenPos.length), score);
+        }
+
+        private void raiseCutoff(double score) {
+            long current = sharedCutoff.get();
+            while (Double.longBitsToDouble(current) < score
+                    && !sharedCutoff.compareAndSet(current, Double.doubleToLongBits(score))) {
+                current = sharedCutoff.get();
+            }
+        }
+
+        List<RankedOutfit> ranked() {
+            List<RankedOutfit> ranked = new ArrayList<>(pool);
+            ranked.addAll(probes);
+            ranked.sort(RANKING);
+            if (!probes.isEmpty()) {
+                // a probe found again by the walk sits right next to its copy
+                List<RankedOutfit> distinct = new ArrayList<>(Math.min(poolSize, ranked.size()));
+                for (RankedOutfit outfit : ranked) {
+                    if (distinct.size() == poolSize) break;
+                    if (distinct.isEmpty() || !Arrays.equals(distinct.get(distinct.size() - 1).key, outfit.key)) {
+                        distinct.add(outfit);
+                    }
+                }
+                ranked = distinct;
+            }
+            return ranked;
+        }
+    }
+}
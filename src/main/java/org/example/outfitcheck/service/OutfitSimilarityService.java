@@ -0,0 +1,147 @@
+package org.example.outfitcheck.service;
+
+import org.example.outfitcheck.entity.ClothingItem;
+import org.example.outfitcheck.entity.Outfit;
+import org.example.outfitcheck.repository.OutfitRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * "Outfits like this one" among the viewer's own outfits and everyone's public ones.
+ *
+ * Each outfit is embedded as a fixed-length vector: how many of its items fall in each slot,
+ * palette color, season and usage, the same attributes the outfit generator works with, scaled
+ * to unit length so similarity is the dot product. All vectors live in an {@link OutfitVectorIndex},
+ * loaded once after startup and then kept current by {@code OutfitController} as outfits are
+ * created, deleted or change visibility.
+ */
+@Service
+public class OutfitSimilarityService {
+
+    private static final int MAX_RESULTS = 50;
+    private static final int LOAD_PAGE_SIZE = 500;
+
+    private final OutfitRepository outfitRepository;
+    private final ColorSpaceService colorSpaceService;
+    private final OutfitVectorIndex index;
+    private final int colorOffset;
+    private final int seasonOffset;
+    private final int usageOffset;
+    /** Deleted while the startup load runs, so a page read before the delete does not bring them back. */
+    private final Set<Long> deletedWhileLoading = ConcurrentHashMap.newKeySet();
+    private volatile boolean loading;
+
+    public OutfitSimilarityService(OutfitRepository outfitRepository, ColorSpaceService colorSpaceService) {
+        this.outfitRepository = outfitRepository;
+        this.colorSpaceService = colorSpaceService;
+        this.colorOffset = WardrobeFeatures.OTHER_SLOT + 1;
+        this.seasonOffset = colorOffset + colorSpaceService.paletteSize() + 1;
+        this.usageOffset = seasonOffset + WardrobeFeatures.KNOWN_SEASONS.length;
+        this.index = new OutfitVectorIndex(usageOffset + WardrobeFeatures.KNOWN_USAGES.length);
+    }
+
+    /** Indexes every existing outfit, a keyset page at a time. */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndex() {
+        loading = true;
+        try {
+            long afterId = 0;
+            while (true) {
+                List<Long> ids = outfitRepository.findIdsAfter(afterId, PageRequest.of(0, LOAD_PAGE_SIZE));
+                if (ids.isEmpty()) break;
+                Map<Long, float[]> vectors = new LinkedHashMap<>();
+                Map<Long, OutfitRepository.OutfitItemFeatures> outfits = new LinkedHashMap<>();
+                for (OutfitRepository.OutfitItemFeatures item : outfitRepository.findItemFeatures(ids)) {
+                    float[] vector = vectors.computeIfAbsent(item.getOutfitId(), id -> new float[index.dimension()]);
+                    addItem(vector, item.getCategory(), item.getBaseColor(), item.getSeason(), item.getUsage());
+                    outfits.putIfAbsent(item.getOutfitId(), item);
+                }
+                for (Map.Entry<Long, float[]> entry : vectors.entrySet()) {
+                    if (deletedWhileLoading.contains(entry.getKey())) continue;
+                    OutfitRepository.OutfitItemFeatures outfit = outfits.get(entry.getKey());
+                    // an outfit created or changed meanwhile is already indexed with its newer state
+                    index.put(entry.getKey(), outfit.getCreatorId(), Boolean.TRUE.equals(outfit.getVisible()),
+                            normalize(entry.getValue()), false);
+                }
+                afterId = ids.get(ids.size() - 1);
+            }
+            System.out.println("Outfit similarity index loaded: " + index.size() + " outfits");
+        } finally {
+            loading = false;
+            deletedWhileLoading.clear();
+        }
+    }
+
+    /** Indexes a created outfit, or re-indexes a changed one. */
+    public void outfitSaved(Outfit outfit) {
+        float[] vector = new float[index.dimension()];
+        if (outfit.getClothingItems() != null) {
+            for (ClothingItem item : outfit.getClothingItems()) {
+                String category = item.getCategory() != null ? item.getCategory().getName() : null;
+                addItem(vector, category, item.getBaseColor(), item.getSeason(), item.getUsage());
+            }
+        }
+        Long creatorId = outfit.getCreator() != null ? outfit.getCreator().getId() : null;
+        index.put(outfit.getId(), creatorId, outfit.isVisible(), normalize(vector), true);
+    }
+
+    public void outfitDeleted(Long outfitId) {
+        if (loading) deletedWhileLoading.add(outfitId);
+        index.remove(outfitId);
+    }
+
+    /**
+     * Ids of the outfits most similar to {@code outfitId}, most similar first: the viewer's own
+     * outfits and all public ones.
+     *
+     * @param viewerId may be null, then only public outfits are searched
+     */
+    public List<Long> similarOutfitIds(Long outfitId, Long viewerId, int limit) {
+        if (limit < 1 || limit > MAX_RESULTS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_RESULTS);
+        }
+        float[] query = index.vector(outfitId);
+        if (query == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Outfit not found");
+        }
+        return Arrays.stream(index.nearest(query, viewerId, outfitId, limit)).boxed().toList();
+    }
+
+    /** One count each for the item's slot, color, season and usage; unknown seasons and usages are left out. */
+    private void addItem(float[] vector, String category, String color, String season, String usage) {
+        vector[WardrobeFeatures.slotOf(category)]++;
+        vector[colorOffset + colorSpaceService.ordinalOf(color)]++;
+        int seasonOrdinal = knownOrdinal(WardrobeFeatures.KNOWN_SEASONS, season);
+        if (seasonOrdinal >= 0) vector[seasonOffset + seasonOrdinal]++;
+        int usageOrdinal = knownOrdinal(WardrobeFeatures.KNOWN_USAGES, usage);
+        if (usageOrdinal >= 0) vector[usageOffset + usageOrdinal]++;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) norm += value * value;
+        if (norm == 0) return vector;
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int d = 0; d < vector.length; d++) vector[d] *= scale;
+        return vector;
+    }
+
+    private static int knownOrdinal(String[] known, String value) {
+        if (value == null) return -1;
+        return Arrays.asList(known).indexOf(value.trim().toLowerCase(Locale.ROOT));
+    }
+}
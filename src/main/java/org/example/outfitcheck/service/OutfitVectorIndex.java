@@ -0,0 +1,153 @@
+package org.example.outfitcheck.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory nearest-neighbour index of unit-length outfit vectors, by cosine similarity.
+ *
+ * The vectors sit back to back in one float array, so a query is a single sequential scan with
+ * a dot product per outfit and no per-outfit objects; at this many dimensions that stays in the
+ * low milliseconds for hundreds of thousands of outfits. Removing an outfit moves the last row
+ * into its place. Queries share a read lock; updates take the write lock.
+ */
+final class OutfitVectorIndex {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int dimension;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> rows = new HashMap<>();
+    private long[] outfitIds = new long[INITIAL_CAPACITY];
+    /** Creator per row; {@link Long#MIN_VALUE} for an outfit without one. */
+    private long[] creatorIds = new long[INITIAL_CAPACITY];
+    private boolean[] visible = new boolean[INITIAL_CAPACITY];
+    private float[] vectors;
+    private int size;
+
+    OutfitVectorIndex(int dimension) {
+        this.dimension = dimension;
+        this.vectors = new float[INITIAL_CAPACITY * dimension];
+    }
+
+    /**
+     * Adds the outfit, or replaces its row.
+     *
+     * @param replace false to keep an existing row
+     */
+    void put(long outfitId, Long creatorId, boolean isVisible, float[] vector, boolean replace) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = rows.get(outfitId);
+            if (existing != null && !replace) return;
+            int row = existing != null ? existing : append(outfitId);
+            creatorIds[row] = creatorId != null ? creatorId : Long.MIN_VALUE;
+            visible[row] = isVisible;
+            System.arraycopy(vector, 0, vectors, row * dimension, dimension);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long outfitId) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rows.remove(outfitId);
+            if (row == null) return;
+            int last = --size;
+            if (row != last) {
+                outfitIds[row] = outfitIds[last];
+                creatorIds[row] = creatorIds[last];
+                visible[row] = visible[last];
+                System.arraycopy(vectors, last * dimension, vectors, row * dimension, dimension);
+                rows.put(outfitIds[row], row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** A copy of the outfit's vector, or null when it is not indexed. */
+    float[] vector(long outfitId) {
+        lock.readLock().lock();
+        try {
+            Integer row = rows.get(outfitId);
+            if (row == null) return null;
+            return Arrays.copyOfRange(vectors, row * dimension, (row + 1) * dimension);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the {@code limit} outfits most similar to {@code query}, most similar first, among
+     * the visible ones and those of {@code viewerId}. Outfits sharing nothing with the query are
+     * left out.
+     *
+     * @param viewerId  may be null, then only visible outfits qualify
+     * @param excludeId outfit left out of the results, usually the one the query came from
+     */
+    long[] nearest(float[] query, Long viewerId, long excludeId, int limit) {
+        long viewer = viewerId != null ? viewerId : Long.MIN_VALUE;
+        long[] bestIds = new long[limit];
+        float[] bestScores = new float[limit];
+        int found = 0;
+
+        lock.readLock().lock();
+        try {
+            for (int row = 0; row < size; row++) {
+                if (outfitIds[row] == excludeId) continue;
+                if (!visible[row] && (viewerId == null || creatorIds[row] != viewer)) continue;
+                float similarity = 0;
+                int base = row * dimension;
+                for (int d = 0; d < dimension; d++) {
+                    similarity += query[d] * vectors[base + d];
+                }
+                if (similarity <= 0 || found == limit && similarity <= bestScores[limit - 1]) continue;
+
+                // insertion into the short, sorted result list
+                int at = found < limit ? found++ : limit - 1;
+                while (at > 0 && bestScores[at - 1] < similarity) {
+                    bestScores[at] = bestScores[at - 1];
+                    bestIds[at] = bestIds[at - 1];
+                    at--;
+                }
+                bestScores[at] = similarity;
+                bestIds[at] = outfitIds[row];
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return Arrays.copyOf(bestIds, found);
+    }
+
+    int dimension() {
+        return dimension;
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int append(long outfitId) {
+        if (size == outfitIds.length) {
+            int capacity = size * 2;
+            outfitIds = Arrays.copyOf(outfitIds, capacity);
+            creatorIds = Arrays.copyOf(creatorIds, capacity);
+            visible = Arrays.copyOf(visible, capacity);
+            vectors = Arrays.copyOf(vectors, capacity * dimension);
+        }
+        int row = size++;
+        outfitIds[row] = outfitId;
+        rows.put(outfitId, row);
+        return row;
+    }
+}
@@ -0,0 +1,148 @@
+package org.example.outfitcheck.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.outfitcheck.dto.OutfitSuggestionDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded LRU cache of generated recommendations.
+ *
+ * Entries are keyed by the user, the normalized request, the user's wardrobe and feedback
+ * versions and the day, so a wardrobe change, new feedback or a new day (the recency penalties
+ * count days since an item was worn) makes older entries unreachable; they are evicted as the
+ * cache fills up.
+ */
+@Service
+public class RecommendationCache {
+
+    public record Key(
+            Long userId,
+            String context,
+            String season,
+            boolean includeHeadwear,
+            boolean includeOuterwear,
+            int topwearLayers,
+            boolean preferFullBodywear,
+            List<Long> pinnedItemIds,
+            long wardrobeVersion,
+            long feedbackVersion,
+            LocalDate day
+    ) {
+        public static Key of(Long userId, String context, String season, boolean includeHeadwear,
+                             boolean includeOuterwear, int topwearLayers, boolean preferFullBodywear,
+                             long wardrobeVersion, long feedbackVersion) {
+            return of(userId, context, season, includeHeadwear, includeOuterwear, topwearLayers,
+                    preferFullBodywear, null, wardrobeVersion, feedbackVersion);
+        }
+
+        /** Builds a key that treats requests the generator cannot tell apart as equal. */
+        public static Key of(Long userId, String context, String season, boolean includeHeadwear,
+                             boolean includeOuterwear, int topwearLayers, boolean preferFullBodywear,
+                             List<Long> pinnedItemIds, long wardrobeVersion, long feedbackVersion) {
+            List<Long> pinned = pinnedItemIds == null ? List.of() : pinnedItemIds.stream()
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .sorted()
+                    .collect(Collectors.toUnmodifiableList());
+            return new Key(userId, normalize(context), normalize(season), includeHeadwear,
+                    includeOuterwear, topwearLayers == 1 ? 1 : 2, preferFullBodywear, pinned, wardrobeVersion,
+                    feedbackVersion, LocalDate.now());
+        }
+
+        private static String normalize(String value) {
+            return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Map<Key, List<OutfitSuggestionDTO>> entries;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public RecommendationCache(@Value("${outfit.recommendations.cache.max-entries:2000}") int maxEntries,
+                               MeterRegistry meterRegistry) {
+        this.hits = meterRegistry.counter("outfit.recommendations.cache", "result", "hit");
+        this.misses = meterRegistry.counter("outfit.recommendations.cache", "result", "miss");
+        this.evictions = meterRegistry.counter("outfit.recommendations.cache.evictions");
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<OutfitSuggestionDTO>> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        Gauge.builder("outfit.recommendations.cache.size", this, RecommendationCache::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached suggestions for {@code key}, computing and storing them on a miss.
+     * Callers always get their own copies, since the DTOs are mutable.
+     */
+    public List<OutfitSuggestionDTO> get(Key key, Supplier<List<OutfitSuggestionDTO>> generator) {
+        List<OutfitSuggestionDTO> cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        List<OutfitSuggestionDTO> generated = generator.get();
+        put(key, generated);
+        return generated;
+    }
+
+    /** A copy of the cached suggestions for {@code key}, or null on a miss. */
+    public List<OutfitSuggestionDTO> lookup(Key key) {
+        List<OutfitSuggestionDTO> cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return copy(cached);
+    }
+
+    public void put(Key key, List<OutfitSuggestionDTO> suggestions) {
+        List<OutfitSuggestionDTO> stored = copy(suggestions);
+        synchronized (entries) {
+            entries.put(key, stored);
+        }
+    }
+
+    /** Drops every entry, for changes the keys do not capture (e.g. new scoring rules). */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static List<OutfitSuggestionDTO> copy(List<OutfitSuggestionDTO> suggestions) {
+        return suggestions.stream()
+                .map(s -> new OutfitSuggestionDTO(s.getTop1Id(), s.getTop2Id(), s.getBottomId(),
+                        s.getFootwearId(), s.getOuterwearId(), s.getHeadwearId(), s.getFullBodywearId(),
+                        s.getScore()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.outfitcheck.service;
+
+import org.example.outfitcheck.dto.OutfitSuggestionDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Short-lived server-side state behind "show me more" cursors. Each session keeps the feature
+ * table and the resumable suggestion stream of one generation; sessions expire after a period
+ * of inactivity and the least recently used ones are dropped when the store is full.
+ */
+@Service
+public class RecommendationSessionStore {
+
+    static final class Session {
+        final Long userId;
+        final long wardrobeVersion;
+        final long seed;
+        final WardrobeFeatures wardrobe;
+        final SuggestionStream stream;
+        volatile long lastAccess;
+        /** Pages handed out so far and the last one, so a retried cursor gets the same page. */
+        int pagesServed;
+        List<OutfitSuggestionDTO> lastPage;
+
+        Session(Long userId, long wardrobeVersion, long seed, WardrobeFeatures wardrobe, SuggestionStream stream) {
+            this.userId = userId;
+            this.wardrobeVersion = wardrobeVersion;
+            this.seed = seed;
+            this.wardrobe = wardrobe;
+            this.stream = stream;
+            this.lastAccess = System.currentTimeMillis();
+        }
+    }
+
+    private final SecureRandom random = new SecureRandom();
+    private final long ttlMillis;
+    private final Map<String, Session> sessions;
+
+    public RecommendationSessionStore(@Value("${outfit.recommendations.sessions.max-entries:1000}") int maxEntries,
+                                      @Value("${outfit.recommendations.sessions.ttl-seconds:600}") long ttlSeconds) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.sessions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Session> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /** Stores the session and returns its id. */
+    String open(Session session) {
+        byte[] bytes = new byte[18];
+        random.nextBytes(bytes);
+        String id = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        synchronized (sessions) {
+            long now = System.currentTimeMillis();
+            // access order puts the idle sessions first
+            Iterator<Session> eldest = sessions.values().iterator();
+            while (eldest.hasNext() && now - eldest.next().lastAccess > ttlMillis) {
+                eldest.remove();
+            }
+            sessions.put(id, session);
+        }
+        return id;
+    }
+
+    /** The live session with this id, or null when unknown or expired. */
+    Session find(String id) {
+        synchronized (sessions) {
+            Session session = sessions.get(id);
+            if (session == null) return null;
+            long now = System.currentTimeMillis();
+            if (now - session.lastAccess > ttlMillis) {
+                sessions.remove(id);
+                return null;
+            }
+            session.lastAccess = now;
+            return session;
+        }
+    }
+
+    void close(String id) {
+        synchronized (sessions) {
+            sessions.remove(id);
+        }
+    }
+
+    /** Cursor for page {@code page} of a session. */
+    static String cursor(String id, int page) {
+        return id + "." + page;
+    }
+}
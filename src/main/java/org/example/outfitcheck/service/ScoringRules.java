@@ -0,0 +1,183 @@
+package org.example.outfitcheck.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Scoring rules of the outfit generator, compiled from a {@link Definition} into tables indexed
+ * by the ordinals of {@link WardrobeFeatures} and {@link ColorSpaceService}. Scoring an item or
+ * a pair is an array read; no strings or maps are involved. Immutable, so a generation that
+ * picked up one instance scores consistently even while the rules are reloaded.
+ */
+final class ScoringRules {
+
+    /**
+     * The rules file as written; style names are the usages known to {@link WardrobeFeatures}.
+     * The recent wear penalty is optional: an item worn today loses {@code recentWearPenalty},
+     * fading linearly to nothing after {@code recentWearDays} days. Two colors whose pair penalty
+     * exceeds the optional {@code maxPairPenalty} clash; the wardrobe analytics only count
+     * outfits without a clash.
+     */
+    record Definition(
+            Double baseScore,
+            Double seasonMatchBonus,
+            Double colorPenaltyPerDeltaE,
+            Map<String, Map<String, Integer>> styleCompatibility,
+            Double recentWearPenalty,
+            Integer recentWearDays,
+            Double maxPairPenalty
+    ) {
+    }
+
+    final double baseScore;
+    private final double seasonMatchBonus;
+    /** [requested style][item usage], usage ordinals of {@link WardrobeFeatures}. */
+    private final int[][] styleBonus;
+    /** Penalty per palette color pair, (palette + 1)² like the ΔE matrix. */
+    private final double[] colorPenalty;
+    private final int colorStride;
+    /** Penalty by days since the item was worn, within the recent wear window. */
+    private final double[] recentWear;
+    private final double maxPairPenalty;
+    /** Per color ordinal, the bit set of the color ordinals it does not clash with. */
+    private final int[] compatibleColors;
+    /** A user's learned weights, or null for the shared rules. */
+    private final FeedbackWeights feedback;
+
+    private ScoringRules(double baseScore, double seasonMatchBonus, int[][] styleBonus,
+                         double[] colorPenalty, int colorStride, double[] recentWear, double maxPairPenalty,
+                         FeedbackWeights feedback) {
+        this.baseScore = baseScore;
+        this.seasonMatchBonus = seasonMatchBonus;
+        this.styleBonus = styleBonus;
+        this.colorPenalty = colorPenalty;
+        this.colorStride = colorStride;
+        this.recentWear = recentWear;
+        this.maxPairPenalty = maxPairPenalty;
+        this.feedback = feedback;
+        this.compatibleColors = new int[colorStride];
+        for (int a = 0; a < colorStride; a++) {
+            for (int b = 0; b < colorStride; b++) {
+                if (colorPenalty[a * colorStride + b] <= maxPairPenalty) compatibleColors[a] |= 1 << b;
+            }
+        }
+    }
+
+    /** @throws IllegalArgumentException when a value is missing or a style is unknown */
+    static ScoringRules compile(Definition definition, ColorSpaceService colors) {
+        if (definition.baseScore() == null || definition.seasonMatchBonus() == null
+                || definition.colorPenaltyPerDeltaE() == null || definition.styleCompatibility() == null) {
+            throw new IllegalArgumentException("baseScore, seasonMatchBonus, colorPenaltyPerDeltaE and styleCompatibility are required");
+        }
+
+        List<String> styles = Arrays.asList(WardrobeFeatures.KNOWN_USAGES);
+        int[][] styleBonus = new int[styles.size()][styles.size()];
+        for (Map.Entry<String, Map<String, Integer>> row : definition.styleCompatibility().entrySet()) {
+            int requested = styleOrdinal(styles, row.getKey());
+            for (Map.Entry<String, Integer> cell : row.getValue().entrySet()) {
+                styleBonus[requested][styleOrdinal(styles, cell.getKey())] = cell.getValue();
+            }
+        }
+
+        int stride = colors.paletteSize() + 1;
+        if (stride > Integer.SIZE) {
+            throw new IllegalArgumentException("Palette too large for the color compatibility sets");
+        }
+        double[] colorPenalty = new double[stride * stride];
+        for (int a = 0; a < stride; a++) {
+            for (int b = 0; b < stride; b++) {
+                colorPenalty[a * stride + b] = colors.distance(a, b) * definition.colorPenaltyPerDeltaE();
+            }
+        }
+        int wearDays = definition.recentWearDays() != null ? definition.recentWearDays() : 0;
+        double wearPenalty = definition.recentWearPenalty() != null ? definition.recentWearPenalty() : 0;
+        if (wearDays < 0) {
+            throw new IllegalArgumentException("recentWearDays must not be negative");
+        }
+        double[] recentWear = new double[wearPenalty != 0 ? wearDays : 0];
+        for (int day = 0; day < recentWear.length; day++) {
+            recentWear[day] = wearPenalty * (wearDays - day) / wearDays;
+        }
+        double maxPairPenalty = definition.maxPairPenalty() != null ? definition.maxPairPenalty() : Double.POSITIVE_INFINITY;
+        return new ScoringRules(definition.baseScore(), definition.seasonMatchBonus(), styleBonus, colorPenalty, stride,
+                recentWear, maxPairPenalty, null);
+    }
+
+    /**
+     * These rules with a user's learned weights folded in: item weights are added to the item
+     * score, color pair weights are subtracted from the color penalty table. A penalty never
+     * drops below zero, since the search bounds rely on pairs only ever lowering a score.
+     *
+     * @param feedback a private copy, kept by the returned rules; null returns these rules
+     */
+    ScoringRules personalized(FeedbackWeights feedback) {
+        if (feedback == null) return this;
+        double[] adjusted = new double[colorPenalty.length];
+        for (int p = 0; p < adjusted.length; p++) {
+            adjusted[p] = Math.max(0, colorPenalty[p] - feedback.colorPair[p]);
+        }
+        return new ScoringRules(baseScore, seasonMatchBonus, styleBonus, adjusted, colorStride, recentWear,
+                maxPairPenalty, feedback);
+    }
+
+    /** Number of color ordinals: the palette plus the unknown color. */
+    int colorStride() {
+        return colorStride;
+    }
+
+    /** Bit set of the color ordinals that do not clash with {@code color}. */
+    int compatibleColors(int color) {
+        return compatibleColors[color];
+    }
+
+    /** Days of wear history the recent wear penalty looks at; 0 when it is off. */
+    int recentWearDays() {
+        return recentWear.length;
+    }
+
+    /**
+     * Season and style bonus of a single item, less its recent wear penalty; pair penalties are
+     * added by the search.
+     *
+     * @param daysSinceWorn by wardrobe index, see {@link WearHistoryService#daysSinceWorn}; may be null
+     */
+    double itemScore(WardrobeFeatures wardrobe, int i, int season, int style, int[] daysSinceWorn) {
+        double score = itemScore(wardrobe, i, season, style);
+        if (daysSinceWorn != null && daysSinceWorn[i] >= 0 && daysSinceWorn[i] < recentWear.length) {
+            score -= recentWear[daysSinceWorn[i]];
+        }
+        return score;
+    }
+
+    /** Season and style bonus plus the learned item weights. */
+    private double itemScore(WardrobeFeatures wardrobe, int i, int season, int style) {
+        double score = 0;
+        if (season != WardrobeFeatures.NONE && wardrobe.season[i] == season) score += seasonMatchBonus;
+        int usage = wardrobe.usage[i];
+        if (style >= 0 && style < styleBonus.length && usage >= 0 && usage < styleBonus.length) {
+            score += styleBonus[style][usage];
+        }
+        if (feedback != null) {
+            if (usage >= 0 && usage < feedback.usage.length) score += feedback.usage[usage];
+            int itemSeason = wardrobe.season[i];
+            if (itemSeason >= 0 && itemSeason < feedback.season.length) score += feedback.season[itemSeason];
+            if (wardrobe.slot[i] < feedback.slot.length) score += feedback.slot[wardrobe.slot[i]];
+        }
+        return score;
+    }
+
+    /** Color penalty between two items of the same outfit. */
+    double pairPenalty(WardrobeFeatures wardrobe, int a, int b) {
+        return colorPenalty[wardrobe.color[a] * colorStride + wardrobe.color[b]];
+    }
+
+    private static int styleOrdinal(List<String> styles, String name) {
+        int ordinal = styles.indexOf(name.trim().toLowerCase(Locale.ROOT));
+        if (ordinal < 0) {
+            throw new IllegalArgumentException("Unknown style in scoring rules: " + name);
+        }
+        return ordinal;
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.outfitcheck.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Loads the scoring rules file ({@code outfit.scoring.rules}), compiles it into {@link ScoringRules}
+ * and swaps the compiled rules atomically whenever the file changes, without a restart.
+ *
+ * The file is compiled at startup, so a broken file stops the application. A broken file found on
+ * reload is reported and the rules in use are kept.
+ */
+@Service
+public class ScoringRulesService {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Resource location;
+    private final ColorSpaceService colorSpaceService;
+    private final RecommendationCache recommendationCache;
+    private final AtomicReference<ScoringRules> current = new AtomicReference<>();
+    private volatile long loadedModified;
+
+    public ScoringRulesService(@Value("${outfit.scoring.rules:classpath:scoring-rules.json}") Resource location,
+                               ColorSpaceService colorSpaceService,
+                               RecommendationCache recommendationCache) {
+        this.location = location;
+        this.colorSpaceService = colorSpaceService;
+        this.recommendationCache = recommendationCache;
+        long modified = lastModified();
+        current.set(compile());
+        loadedModified = modified;
+    }
+
+    ScoringRules current() {
+        return current.get();
+    }
+
+    /**
+     * Recompiles the rules file now; the rules in use are only replaced if it compiles. Cached
+     * recommendations were scored with the old rules and are dropped.
+     */
+    public synchronized void reload() {
+        long modified = lastModified();
+        current.set(compile());
+        loadedModified = modified;
+        recommendationCache.clear();
+    }
+
+    @Scheduled(fixedDelayString = "${outfit.scoring.reload-check-ms:30000}")
+    public void reloadIfModified() {
+        if (lastModified() == loadedModified) {
+            return;
+        }
+        try {
+            reload();
+            System.out.println("Scoring rules reloaded from " + location.getDescription());
+        } catch (RuntimeException e) {
+            System.err.println("Scoring rules not reloaded, keeping the current ones: " + e.getMessage());
+            // nu mai incercam pana la urmatoarea modificare a fisierului
+            loadedModified = lastModified();
+        }
+    }
+
+    private ScoringRules compile() {
+        try (InputStream in = location.getInputStream()) {
+            return ScoringRules.compile(objectMapper.readValue(in, ScoringRules.Definition.class), colorSpaceService);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read scoring rules from " + location.getDescription(), e);
+        }
+    }
+
+    /** Modification time of the file, or 0 when the location has none (e.g. inside the jar). */
+    private long lastModified() {
+        try {
+            return location.lastModified();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+}
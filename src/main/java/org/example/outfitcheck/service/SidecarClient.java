@@ -0,0 +1,162 @@
+package org.example.outfitcheck.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.File;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP calls to the local Flask sidecars: the fashion classifier and the background remover.
+ *
+ * All calls share one {@link HttpClient}, which keeps connections alive and reuses them. Each
+ * sidecar has its own read timeout, a limit on concurrent calls (a slow sidecar cannot take every
+ * request thread) and a {@link CircuitBreaker}. Timeouts, connection errors and 5xx answers are
+ * retried with exponential backoff and full jitter; the sidecars compute a result from the image
+ * and keep no state, so sending the same image twice is harmless. A full bulkhead or an open
+ * breaker fails right away with 503.
+ */
+@Service
+public class SidecarClient {
+
+    public enum Sidecar { CLASSIFIER, BACKGROUND_REMOVER }
+
+    private static final class Endpoint {
+        final String baseUrl;
+        final RestTemplate restTemplate;
+        final Semaphore bulkhead;
+        final CircuitBreaker breaker;
+
+        Endpoint(String baseUrl, RestTemplate restTemplate, Semaphore bulkhead, CircuitBreaker breaker) {
+            this.baseUrl = baseUrl;
+            this.restTemplate = restTemplate;
+            this.bulkhead = bulkhead;
+            this.breaker = breaker;
+        }
+    }
+
+    private final Map<Sidecar, Endpoint> endpoints = new EnumMap<>(Sidecar.class);
+    private final long bulkheadWaitMillis;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+
+    public SidecarClient(@Value("${outfit.sidecar.classifier.url:http://localhost:5005}") String classifierUrl,
+                         @Value("${outfit.sidecar.classifier.read-timeout-ms:10000}") long classifierReadTimeoutMs,
+                         @Value("${outfit.sidecar.classifier.max-concurrent:8}") int classifierMaxConcurrent,
+                         @Value("${outfit.sidecar.remove-bg.url:http://127.0.0.1:5000}") String removeBgUrl,
+                         @Value("${outfit.sidecar.remove-bg.read-timeout-ms:30000}") long removeBgReadTimeoutMs,
+                         @Value("${outfit.sidecar.remove-bg.max-concurrent:4}") int removeBgMaxConcurrent,
+                         @Value("${outfit.sidecar.connect-timeout-ms:2000}") long connectTimeoutMs,
+                         @Value("${outfit.sidecar.bulkhead-wait-ms:1000}") long bulkheadWaitMillis,
+                         @Value("${outfit.sidecar.max-attempts:3}") int maxAttempts,
+                         @Value("${outfit.sidecar.retry-backoff-ms:200}") long retryBackoffMillis,
+                         @Value("${outfit.sidecar.breaker.failure-threshold:5}") int breakerFailureThreshold,
+                         @Value("${outfit.sidecar.breaker.open-ms:30000}") long breakerOpenMillis) {
+        this.bulkheadWaitMillis = bulkheadWaitMillis;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMillis = retryBackoffMillis;
+
+        // the Flask dev servers only speak HTTP/1.1
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        endpoints.put(Sidecar.CLASSIFIER, new Endpoint(classifierUrl,
+                restTemplate(httpClient, classifierReadTimeoutMs), new Semaphore(classifierMaxConcurrent),
+                new CircuitBreaker("Clasificatorul AI", breakerFailureThreshold, breakerOpenMillis)));
+        endpoints.put(Sidecar.BACKGROUND_REMOVER, new Endpoint(removeBgUrl,
+                restTemplate(httpClient, removeBgReadTimeoutMs), new Semaphore(removeBgMaxConcurrent),
+                new CircuitBreaker("Serviciul remove_bg", breakerFailureThreshold, breakerOpenMillis)));
+    }
+
+    /**
+     * Posts {@code image} as the multipart part "image" and returns the converted answer.
+     *
+     * @throws ResponseStatusException 503 while the sidecar is considered down or busy
+     * @throws RestClientException when the last attempt fails
+     */
+    public <T> T postImage(Sidecar sidecar, String path, File image, Class<T> responseType) {
+        Endpoint endpoint = endpoints.get(sidecar);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("image", new FileSystemResource(image));
+        HttpEntity<MultiValueMap<String, Object>> request = new HttpEntity<>(body, headers);
+
+        for (int attempt = 1; ; attempt++) {
+            acquire(endpoint, sidecar);
+            if (!endpoint.breaker.allowRequest()) {
+                endpoint.bulkhead.release();
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, sidecar + " is unavailable");
+            }
+            try {
+                T answer = endpoint.restTemplate.postForObject(endpoint.baseUrl + path, request, responseType);
+                endpoint.breaker.recordSuccess();
+                return answer;
+            } catch (ResourceAccessException | HttpServerErrorException e) {
+                endpoint.breaker.recordFailure();
+                if (attempt >= maxAttempts) throw e;
+            } catch (RestClientException e) {
+                // a 4xx or an unreadable answer: the sidecar itself is up
+                endpoint.breaker.recordSuccess();
+                throw e;
+            } catch (RuntimeException e) {
+                // every allowed call must end with an outcome, or a half-open breaker stays shut
+                endpoint.breaker.recordFailure();
+                throw e;
+            } finally {
+                endpoint.bulkhead.release();
+            }
+            backOff(attempt);
+        }
+    }
+
+    private void acquire(Endpoint endpoint, Sidecar sidecar) {
+        boolean acquired;
+        try {
+            acquired = endpoint.bulkhead.tryAcquire(bulkheadWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, sidecar + " is busy");
+        }
+    }
+
+    /** Sleeps a random time up to the exponential backoff of this attempt. */
+    private void backOff(int attempt) {
+        long cap = retryBackoffMillis << Math.min(attempt - 1, 10);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while retrying", e);
+        }
+    }
+
+    private static RestTemplate restTemplate(HttpClient httpClient, long readTimeoutMs) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        return new RestTemplate(requestFactory);
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.outfitcheck.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Diversified, resumable stream over the ranked outfits of one {@link OutfitSearch}.
+ *
+ * Outfits are consumed best-first from a bounded tier of the search; a candidate is kept when
+ * it differs enough from everything kept so far. When a tier is used up the next one is
+ * searched after the last outfit seen, so nothing is enumerated or returned twice.
+ */
+final class SuggestionStream {
+
+    private final OutfitSearch search;
+    private final int poolSize;
+    private final ForkJoinPool forkJoinPool;
+    private final OutfitSearch.Budget budget;
+    /** Two items must differ, or one when the outfit has only one slot left to vary (pinned items). */
+    private final int minDifferences;
+
+    private final List<OutfitSearch.RankedOutfit> picked = new ArrayList<>();
+    private List<OutfitSearch.RankedOutfit> tier = List.of();
+    private int position;
+    private OutfitSearch.RankedOutfit frontier;
+    private boolean searchDone;
+    private boolean exhaustive = true;
+
+    SuggestionStream(OutfitSearch search, int poolSize, ForkJoinPool forkJoinPool) {
+        this(search, poolSize, forkJoinPool, null);
+    }
+
+    /** With a budget the stream ends at the first tier the budget cut short. */
+    SuggestionStream(OutfitSearch search, int poolSize, ForkJoinPool forkJoinPool, OutfitSearch.Budget budget) {
+        this.search = search;
+        this.poolSize = poolSize;
+        this.forkJoinPool = forkJoinPool;
+        this.budget = budget;
+        this.minDifferences = Math.max(1, Math.min(2, search.freeDepths()));
+    }
+
+    /** Up to {@code count} further outfits; fewer only when the wardrobe has no more. */
+    synchronized List<OutfitSearch.RankedOutfit> next(int count) {
+        return next(count, outfit -> { });
+    }
+
+    /**
+     * Same as {@link #next(int)}, handing every outfit to {@code onPick} as soon as it is picked.
+     * Without a budget and a fork-join pool the first tier is searched progressively, so the best
+     * outfits are picked while the search is still running; the progressive pass is serial, so a
+     * search that may use the pool runs the whole tier in parallel instead.
+     */
+    synchronized List<OutfitSearch.RankedOutfit> next(int count, Consumer<OutfitSearch.RankedOutfit> onPick) {
+        List<OutfitSearch.RankedOutfit> page = new ArrayList<>();
+        if (budget == null && forkJoinPool == null && frontier == null && tier.isEmpty() && !searchDone) {
+            OutfitSearch.Tier first = search.runProgressive(poolSize, proven -> {
+                for (OutfitSearch.RankedOutfit candidate : proven) {
+                    if (page.size() == count) return;
+                    position++;
+                    pick(candidate, page, onPick);
+                }
+            });
+            tier = first.ranked;
+            searchDone = first.complete || first.ranked.isEmpty();
+            if (!tier.isEmpty()) frontier = tier.get(tier.size() - 1);
+        }
+        while (page.size() < count) {
+            if (position == tier.size()) {
+                if (searchDone) break;
+                OutfitSearch.Tier next = search.run(frontier, poolSize, forkJoinPool, budget);
+                tier = next.ranked;
+                position = 0;
+                // outfits a cut-short tier did not reach could rank above its frontier
+                exhaustive &= next.exhaustive;
+                searchDone = next.complete || next.ranked.isEmpty() || !next.exhaustive;
+                if (!tier.isEmpty()) frontier = tier.get(tier.size() - 1);
+                continue;
+            }
+            pick(tier.get(position++), page, onPick);
+        }
+        return page;
+    }
+
+    private void pick(OutfitSearch.RankedOutfit candidate, List<OutfitSearch.RankedOutfit> page,
+                      Consumer<OutfitSearch.RankedOutfit> onPick) {
+        boolean similarExists = picked.stream()
+                .anyMatch(existing -> isTooSimilar(existing, candidate, minDifferences));
+        if (!similarExists) {
+            picked.add(candidate);
+            page.add(candidate);
+            onPick.accept(candidate);
+        }
+    }
+
+    /** False when the budget ran out before the outfits returned so far were proven best. */
+    synchronized boolean isExhaustive() {
+        return exhaustive;
+    }
+
+    synchronized boolean hasMore() {
+        return position < tier.size() || !searchDone;
+    }
+
+    static boolean isTooSimilar(OutfitSearch.RankedOutfit a, OutfitSearch.RankedOutfit b, int minDifferences) {
+        int diffCount = 0;
+        for (int p = 0; p < OutfitSearch.POSITIONS; p++) {
+            if (a.items[p] != b.items[p]) diffCount++;
+        }
+        return diffCount < minDifferences; // prea similare daca difera prin prea putine articole
+    }
+}
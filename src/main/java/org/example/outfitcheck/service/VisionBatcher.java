@@ -0,0 +1,139 @@
+package org.example.outfitcheck.service;
+
+import com.google.cloud.vision.v1.AnnotateImageRequest;
+import com.google.cloud.vision.v1.AnnotateImageResponse;
+import com.google.cloud.vision.v1.BatchAnnotateImagesResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends concurrent Vision requests together, one {@code batchAnnotateImages} call per batch.
+ *
+ * A dispatcher thread takes the first waiting request, then keeps collecting for at most
+ * {@code lingerMillis} or until the batch is full, and hands the batch to a sender; each caller's
+ * future completes with its own response. A batch is full at {@code maxBatchSize} requests or when
+ * the next request would take it past {@code maxBatchBytes}, since Vision refuses a call over its
+ * payload limit and a refused call fails every caller in it; that request starts the next batch. At
+ * most {@code concurrentBatches} calls are in flight; while they all are, requests keep queueing,
+ * so under load batches fill up by themselves.
+ */
+final class VisionBatcher {
+
+    private record Pending(AnnotateImageRequest request, long bytes, CompletableFuture<AnnotateImageResponse> response) {
+    }
+
+    private final ImageAnnotator annotator;
+    private final int maxBatchSize;
+    private final long maxBatchBytes;
+    private final long lingerNanos;
+    private final Semaphore inFlight;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService senders;
+    private final Thread dispatcher;
+    private volatile boolean stopped;
+
+    VisionBatcher(ImageAnnotator annotator, int maxBatchSize, long maxBatchBytes, long lingerMillis,
+                  int concurrentBatches) {
+        this.annotator = annotator;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchBytes = maxBatchBytes;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.inFlight = new Semaphore(concurrentBatches);
+        AtomicInteger counter = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(concurrentBatches, task -> {
+            Thread worker = new Thread(task, "vision-batch-" + counter.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        });
+        this.dispatcher = new Thread(this::dispatch, "vision-batcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    CompletableFuture<AnnotateImageResponse> submit(AnnotateImageRequest request) {
+        CompletableFuture<AnnotateImageResponse> response = new CompletableFuture<>();
+        queue.add(new Pending(request, request.getSerializedSize(), response));
+        // a request added after the dispatcher's last look would never be sent
+        if (stopped) failWaiting();
+        return response;
+    }
+
+    /** Stops batching; requests not yet sent fail. */
+    void stop() {
+        stopped = true;
+        dispatcher.interrupt();
+        senders.shutdownNow();
+        failWaiting();
+    }
+
+    private void dispatch() {
+        // taken from the queue, but did not fit into the previous batch
+        Pending carried = null;
+        while (!stopped) {
+            List<Pending> batch = new ArrayList<>(maxBatchSize);
+            try {
+                inFlight.acquire();
+                Pending first = carried != null ? carried : queue.take();
+                carried = null;
+                // a single request over the limit still goes, alone
+                batch.add(first);
+                long bytes = first.bytes();
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    Pending next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    if (bytes + next.bytes() > maxBatchBytes) {
+                        carried = next;
+                        break;
+                    }
+                    batch.add(next);
+                    bytes += next.bytes();
+                }
+                senders.execute(() -> send(batch));
+            } catch (InterruptedException | RejectedExecutionException e) {
+                if (carried != null) batch.add(carried);
+                fail(batch, new IllegalStateException("Vision batching stopped"));
+                return;
+            }
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        try {
+            List<AnnotateImageRequest> requests = new ArrayList<>(batch.size());
+            for (Pending pending : batch) requests.add(pending.request());
+            BatchAnnotateImagesResponse responses = annotator.annotate(requests);
+            if (responses.getResponsesCount() != batch.size()) {
+                throw new IllegalStateException("Vision answered " + responses.getResponsesCount()
+                        + " of " + batch.size() + " images");
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).response().complete(responses.getResponses(i));
+            }
+        } catch (Exception e) {
+            fail(batch, e);
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private void failWaiting() {
+        List<Pending> waiting = new ArrayList<>();
+        queue.drainTo(waiting);
+        fail(waiting, new IllegalStateException("Vision batching stopped"));
+    }
+
+    private static void fail(List<Pending> batch, Exception error) {
+        for (Pending pending : batch) pending.response().completeExceptionally(error);
+    }
+}
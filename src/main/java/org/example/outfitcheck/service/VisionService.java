@@ -1,26 +1,46 @@
 package org.example.outfitcheck.service;
 
-import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.vision.v1.*;
 import com.google.protobuf.ByteString;
-import com.google.api.gax.core.FixedCredentialsProvider;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class VisionService {
 
-    @Value("${google.cloud.credentials.location}")
-    private String credentialsPath;
-
     private static final String UPLOADS_FOLDER = "uploads/clothing";
 
+    /** Concurrent images go to Vision together, see {@link VisionBatcher}. */
+    private final VisionBatcher batcher;
+    private final long timeoutMillis;
+
+    public VisionService(ImageAnnotator imageAnnotator,
+                         @Value("${outfit.vision.batch-size:16}") int batchSize,
+                         @Value("${outfit.vision.max-batch-bytes:8000000}") long maxBatchBytes,
+                         @Value("${outfit.vision.linger-ms:5}") long lingerMillis,
+                         @Value("${outfit.vision.concurrent-batches:4}") int concurrentBatches,
+                         @Value("${outfit.vision.timeout-ms:30000}") long timeoutMillis) {
+        this.batcher = new VisionBatcher(imageAnnotator, batchSize, maxBatchBytes, lingerMillis, concurrentBatches);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @PreDestroy
+    public void stopBatching() {
+        batcher.stop();
+    }
+
     public Map<String, Object> detectLabelsAndColorsFromFilename(String filename) throws Exception {
         Path imagePath = Paths.get(UPLOADS_FOLDER).resolve(filename).normalize();
 
@@ -34,57 +54,56 @@ public class VisionService {
     }
 
     private Map<String, Object> detectData(InputStream imageInputStream) throws Exception {
-        GoogleCredentials credentials = GoogleCredentials.fromStream(new FileInputStream(credentialsPath));
-        ImageAnnotatorSettings settings = ImageAnnotatorSettings.newBuilder()
-                .setCredentialsProvider(FixedCredentialsProvider.create(credentials))
-                .build();
-
         List<String> detectedObjects = new ArrayList<>();
         List<String> colors = new ArrayList<>();
         String brand = null;
 
-        try (ImageAnnotatorClient vision = ImageAnnotatorClient.create(settings)) {
-            ByteString imgBytes = ByteString.readFrom(imageInputStream);
-            Image img = Image.newBuilder().setContent(imgBytes).build();
+        ByteString imgBytes = ByteString.readFrom(imageInputStream);
+        Image img = Image.newBuilder().setContent(imgBytes).build();
 
-            Feature objectDetection = Feature.newBuilder().setType(Feature.Type.OBJECT_LOCALIZATION).build();
-            Feature colorDetection = Feature.newBuilder().setType(Feature.Type.IMAGE_PROPERTIES).build();
-            Feature logoDetection = Feature.newBuilder().setType(Feature.Type.LOGO_DETECTION).build();
+        Feature objectDetection = Feature.newBuilder().setType(Feature.Type.OBJECT_LOCALIZATION).build();
+        Feature colorDetection = Feature.newBuilder().setType(Feature.Type.IMAGE_PROPERTIES).build();
+        Feature logoDetection = Feature.newBuilder().setType(Feature.Type.LOGO_DETECTION).build();
 
-            AnnotateImageRequest request = AnnotateImageRequest.newBuilder()
-                    .addFeatures(objectDetection)
-                    .addFeatures(colorDetection)
-                    .addFeatures(logoDetection)
-                    .setImage(img)
-                    .build();
+        AnnotateImageRequest request = AnnotateImageRequest.newBuilder()
+                .addFeatures(objectDetection)
+                .addFeatures(colorDetection)
+                .addFeatures(logoDetection)
+                .setImage(img)
+                .build();
 
-            BatchAnnotateImagesResponse response = vision.batchAnnotateImages(List.of(request));
-            AnnotateImageResponse res = response.getResponses(0);
+        AnnotateImageResponse res;
+        try {
+            res = batcher.submit(request).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Vision did not answer in time");
+        }
 
-            if (res.hasError()) {
-                throw new RuntimeException("Eroare Vision API: " + res.getError().getMessage());
-            }
+        if (res.hasError()) {
+            throw new RuntimeException("Eroare Vision API: " + res.getError().getMessage());
+        }
 
-            // Obiecte detectate (înlocuim label detection)
-            for (LocalizedObjectAnnotation obj : res.getLocalizedObjectAnnotationsList()) {
-                detectedObjects.add(obj.getName());
-            }
+        // Obiecte detectate (înlocuim label detection)
+        for (LocalizedObjectAnnotation obj : res.getLocalizedObjectAnnotationsList()) {
+            detectedObjects.add(obj.getName());
+        }
 
-            // Culori dominante
-            if (res.hasImagePropertiesAnnotation()) {
-                for (ColorInfo colorInfo : res.getImagePropertiesAnnotation().getDominantColors().getColorsList()) {
-                    int red = (int) colorInfo.getColor().getRed();
-                    int green = (int) colorInfo.getColor().getGreen();
-                    int blue = (int) colorInfo.getColor().getBlue();
-                    colors.add(String.format("#%02x%02x%02x", red, green, blue));
-                }
+        // Culori dominante
+        if (res.hasImagePropertiesAnnotation()) {
+            for (ColorInfo colorInfo : res.getImagePropertiesAnnotation().getDominantColors().getColorsList()) {
+                int red = (int) colorInfo.getColor().getRed();
+                int green = (int) colorInfo.getColor().getGreen();
+                int blue = (int) colorInfo.getColor().getBlue();
+                colors.add(String.format("#%02x%02x%02x", red, green, blue));
             }
+        }
 
-            // Brand (logo)
-            if (!res.getLogoAnnotationsList().isEmpty()) {
-                EntityAnnotation firstLogo = res.getLogoAnnotationsList().get(0);
-                brand = firstLogo.getDescription();
-            }
+        // Brand (logo)
+        if (!res.getLogoAnnotationsList().isEmpty()) {
+            EntityAnnotation firstLogo = res.getLogoAnnotationsList().get(0);
+            brand = firstLogo.getDescription();
         }
 
         Map<String, Object> result = new HashMap<>();
@@ -0,0 +1,157 @@
+package org.example.outfitcheck.service;
+
+import org.example.outfitcheck.dto.CapsuleWardrobeDTO;
+import org.example.outfitcheck.dto.ItemVersatilityDTO;
+import org.example.outfitcheck.dto.PurchaseSuggestionDTO;
+import org.example.outfitcheck.dto.WardrobeVersatilityDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wardrobe versatility: how many outfits each item takes part in, which item (category and
+ * color) would add the most outfits if the user bought it, and which few items make the most
+ * outfits together (a capsule wardrobe).
+ *
+ * An outfit counts when all its items pass the generator's season and style filters for the
+ * requested shape and no two of them clash; see {@link OutfitCounts}.
+ */
+@Service
+public class WardrobeAnalyticsService {
+
+    private static final int PURCHASE_SUGGESTIONS = 5;
+
+    private final WardrobeIndexService wardrobeIndexService;
+    private final OutfitGeneratorService outfitGeneratorService;
+    private final ColorSpaceService colorSpaceService;
+    private final int capsuleMaxItems;
+    /** The capsule's local search stops improving after this long. */
+    private final long capsuleTimeBudgetMs;
+
+    public WardrobeAnalyticsService(WardrobeIndexService wardrobeIndexService,
+                                    OutfitGeneratorService outfitGeneratorService,
+                                    ColorSpaceService colorSpaceService,
+                                    @Value("${outfit.capsule.max-items:40}") int capsuleMaxItems,
+                                    @Value("${outfit.capsule.time-budget-ms:200}") long capsuleTimeBudgetMs) {
+        this.wardrobeIndexService = wardrobeIndexService;
+        this.outfitGeneratorService = outfitGeneratorService;
+        this.colorSpaceService = colorSpaceService;
+        this.capsuleMaxItems = capsuleMaxItems;
+        this.capsuleTimeBudgetMs = capsuleTimeBudgetMs;
+    }
+
+    public WardrobeVersatilityDTO versatility(
+            Long userId,
+            String context,
+            String season,
+            boolean includeHeadwear,
+            boolean includeOuterwear,
+            int topwearLayers,
+            boolean preferFullBodywear
+    ) {
+        WardrobeFeatures wardrobe = wardrobe(userId);
+        OutfitGeneratorService.RankedSlots slots = outfitGeneratorService.rankSlots(
+                wardrobe, userId, context, season, ThreadLocalRandom.current());
+        OutfitCounts counts = new OutfitCounts(OutfitCounts.groups(wardrobe, slots), slots.rules,
+                OutfitCounts.shape(includeHeadwear, includeOuterwear, topwearLayers, preferFullBodywear));
+
+        long[] outfitCounts = new long[wardrobe.size];
+        for (int slot : counts.shape) {
+            for (int i : slots.candidates[slot]) {
+                outfitCounts[i] = counts.share[slot][wardrobe.color[i]];
+            }
+        }
+        List<ItemVersatilityDTO> items = new ArrayList<>();
+        for (int i = 0; i < wardrobe.size; i++) {
+            items.add(new ItemVersatilityDTO(wardrobe.ids[i], outfitCounts[i]));
+        }
+        items.sort(Comparator.comparingLong(ItemVersatilityDTO::getOutfitCount).reversed());
+        return new WardrobeVersatilityDTO(counts.total, items);
+    }
+
+    /** The items that would add the most outfits, best first; empty when nothing would help. */
+    public List<PurchaseSuggestionDTO> nextPurchase(
+            Long userId,
+            String context,
+            String season,
+            boolean includeHeadwear,
+            boolean includeOuterwear,
+            int topwearLayers,
+            boolean preferFullBodywear
+    ) {
+        WardrobeFeatures wardrobe = wardrobe(userId);
+        OutfitGeneratorService.RankedSlots slots = outfitGeneratorService.rankSlots(
+                wardrobe, userId, context, season, ThreadLocalRandom.current());
+        OutfitCounts counts = new OutfitCounts(OutfitCounts.groups(wardrobe, slots), slots.rules,
+                OutfitCounts.shape(includeHeadwear, includeOuterwear, topwearLayers, preferFullBodywear));
+
+        List<PurchaseSuggestionDTO> suggestions = new ArrayList<>();
+        for (int slot = 0; slot < counts.gain.length; slot++) {
+            // the unknown color is not something one can buy
+            for (int color = 0; color < colorSpaceService.paletteSize(); color++) {
+                if (counts.gain[slot][color] > 0) {
+                    suggestions.add(new PurchaseSuggestionDTO(WardrobeFeatures.slotName(slot),
+                            colorSpaceService.nameOf(color), season, counts.gain[slot][color]));
+                }
+            }
+        }
+        suggestions.sort(Comparator.comparingLong(PurchaseSuggestionDTO::getNewOutfits).reversed());
+        return suggestions.subList(0, Math.min(PURCHASE_SUGGESTIONS, suggestions.size()));
+    }
+
+    /**
+     * The {@code itemCount} available items that make the most outfits together, e.g. for a
+     * trip. Among items of the same slot and color the best scored ones are taken; see
+     * {@link CapsuleOptimizer}.
+     */
+    public CapsuleWardrobeDTO capsule(
+            Long userId,
+            int itemCount,
+            String context,
+            String season,
+            boolean includeHeadwear,
+            boolean includeOuterwear,
+            int topwearLayers,
+            boolean preferFullBodywear
+    ) {
+        if (itemCount < 1 || itemCount > capsuleMaxItems) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A capsule has 1 to " + capsuleMaxItems + " items");
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(capsuleTimeBudgetMs);
+
+        WardrobeFeatures wardrobe = wardrobe(userId);
+        OutfitGeneratorService.RankedSlots slots = outfitGeneratorService.rankSlots(
+                wardrobe, userId, context, season, ThreadLocalRandom.current());
+        int[] shape = OutfitCounts.shape(includeHeadwear, includeOuterwear, topwearLayers, preferFullBodywear);
+        long[][] picked = new CapsuleOptimizer(OutfitCounts.groups(wardrobe, slots), slots.rules, shape,
+                itemCount, deadline).solve();
+        long outfits = new OutfitCounts(picked, slots.rules, shape).total;
+
+        List<Long> itemIds = new ArrayList<>();
+        for (int slot = 0; slot < picked.length; slot++) {
+            long[] remaining = picked[slot].clone();
+            for (int i : slots.candidates[slot]) {
+                if (remaining[wardrobe.color[i]] > 0) {
+                    remaining[wardrobe.color[i]]--;
+                    itemIds.add(wardrobe.ids[i]);
+                }
+            }
+        }
+        return new CapsuleWardrobeDTO(itemIds, outfits);
+    }
+
+    private WardrobeFeatures wardrobe(Long userId) {
+        if (userId == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "userId is required");
+        }
+        return wardrobeIndexService.features(userId);
+    }
+}
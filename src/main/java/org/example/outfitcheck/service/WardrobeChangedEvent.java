@@ -0,0 +1,16 @@
+package org.example.outfitcheck.service;
+
+/**
+ * Published by {@link ClothingItemService} whenever the set of items a user can wear changes, and
+ * by {@link LoggedOutfitService} when the user's wear history changes ({@code itemId} is null then).
+ */
+public record WardrobeChangedEvent(Long userId, Long itemId, Change change) {
+
+    public enum Change {
+        ADDED,
+        DELETED,
+        LAUNDRY_TOGGLED,
+        /** An outfit was logged or unlogged; the items themselves did not change. */
+        WORN
+    }
+}
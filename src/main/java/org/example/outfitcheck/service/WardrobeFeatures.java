@@ -0,0 +1,205 @@
+package org.example.outfitcheck.service;
+
+import org.example.outfitcheck.entity.ClothingItem;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable feature table of a wardrobe.
+ *
+ * Items are addressed by their position in the list the table was built from. Every string
+ * attribute the generator looks at is resolved once into a primitive column, so filtering
+ * and scoring never touch the entities (or the persistence context) again. A table is never
+ * modified once built; {@link #with} and {@link #without} return an updated copy, which lets
+ * {@link WardrobeIndexService} share tables between requests.
+ */
+final class WardrobeFeatures {
+
+    static final int TOPWEAR = 0;
+    static final int BOTTOMWEAR = 1;
+    static final int FOOTWEAR = 2;
+    static final int OUTERWEAR = 3;
+    static final int HEADWEAR = 4;
+    static final int FULLBODYWEAR = 5;
+    static final int OTHER_SLOT = 6;
+
+    private static final String[] SLOT_NAMES = {
+            "topwear", "bottomwear", "footwear", "outerwear", "headwear", "fullbodywear"
+    };
+
+    /** Attribute missing on the item (null). */
+    static final int NONE = -1;
+    /** Requested value no item in this wardrobe carries. */
+    static final int UNMATCHED = -2;
+
+    static final int SPRING = 0;
+    static final int SUMMER = 1;
+    static final int FALL = 2;
+    static final int WINTER = 3;
+    static final String[] KNOWN_SEASONS = {"spring", "summer", "fall", "winter"};
+
+    static final int CASUAL = 0;
+    static final int SMART_CASUAL = 1;
+    static final int FORMAL = 2;
+    static final int SPORT = 3;
+    static final int PARTY = 4;
+    static final int SPORTS = 5;
+    static final String[] KNOWN_USAGES = {"casual", "smart casual", "formal", "sport", "party", "sports"};
+
+    final int size;
+    final long[] ids;
+    /** Palette ordinal of the base color, see {@link ColorSpaceService}. */
+    final int[] color;
+    final boolean[] hasColor;
+    final int[] slot;
+    final int[] season;
+    final int[] usage;
+
+    private final Map<String, Integer> seasonOrdinals;
+    private final Map<String, Integer> usageOrdinals;
+
+    private final ColorSpaceService colors;
+
+    private WardrobeFeatures(int size, ColorSpaceService colors) {
+        this.size = size;
+        this.colors = colors;
+        this.ids = new long[size];
+        this.color = new int[size];
+        this.hasColor = new boolean[size];
+        this.slot = new int[size];
+        this.season = new int[size];
+        this.usage = new int[size];
+        this.seasonOrdinals = dictionary(KNOWN_SEASONS);
+        this.usageOrdinals = dictionary(KNOWN_USAGES);
+    }
+
+    static WardrobeFeatures of(List<ClothingItem> items, ColorSpaceService colors) {
+        WardrobeFeatures features = new WardrobeFeatures(items.size(), colors);
+        for (int i = 0; i < items.size(); i++) {
+            features.fill(i, items.get(i));
+        }
+        return features;
+    }
+
+    /**
+     * Copy of this table with {@code item} added, or replacing the row with the same id.
+     * A new row goes before the first item with a larger id, so a table ordered by id stays
+     * ordered. O(size).
+     */
+    WardrobeFeatures with(ClothingItem item) {
+        long id = item.getId();
+        int existing = indexOf(id);
+        if (existing >= 0) {
+            WardrobeFeatures copy = copy(size, existing, existing + 1, 1);
+            copy.fill(existing, item);
+            return copy;
+        }
+        int at = 0;
+        while (at < size && ids[at] < id) at++;
+        WardrobeFeatures copy = copy(size + 1, at, at, 1);
+        copy.fill(at, item);
+        return copy;
+    }
+
+    /** Copy of this table without the item with this id; this table itself when it is absent. O(size). */
+    WardrobeFeatures without(long id) {
+        int at = indexOf(id);
+        if (at < 0) return this;
+        return copy(size - 1, at, at + 1, 0);
+    }
+
+    /** Copies rows [0, keepUntil) unchanged and rows [resumeFrom, size) to start at keepUntil + gap. */
+    private WardrobeFeatures copy(int newSize, int keepUntil, int resumeFrom, int gap) {
+        WardrobeFeatures copy = new WardrobeFeatures(newSize, colors);
+        copy.seasonOrdinals.putAll(seasonOrdinals);
+        copy.usageOrdinals.putAll(usageOrdinals);
+        int target = keepUntil + gap;
+        int tail = size - resumeFrom;
+        System.arraycopy(ids, 0, copy.ids, 0, keepUntil);
+        System.arraycopy(ids, resumeFrom, copy.ids, target, tail);
+        System.arraycopy(color, 0, copy.color, 0, keepUntil);
+        System.arraycopy(color, resumeFrom, copy.color, target, tail);
+        System.arraycopy(hasColor, 0, copy.hasColor, 0, keepUntil);
+        System.arraycopy(hasColor, resumeFrom, copy.hasColor, target, tail);
+        System.arraycopy(slot, 0, copy.slot, 0, keepUntil);
+        System.arraycopy(slot, resumeFrom, copy.slot, target, tail);
+        System.arraycopy(season, 0, copy.season, 0, keepUntil);
+        System.arraycopy(season, resumeFrom, copy.season, target, tail);
+        System.arraycopy(usage, 0, copy.usage, 0, keepUntil);
+        System.arraycopy(usage, resumeFrom, copy.usage, target, tail);
+        return copy;
+    }
+
+    private void fill(int i, ClothingItem item) {
+        ids[i] = item.getId();
+        hasColor[i] = item.getBaseColor() != null;
+        color[i] = colors.ordinalOf(item.getBaseColor());
+        slot[i] = slotOf(item);
+        season[i] = intern(seasonOrdinals, item.getSeason());
+        usage[i] = intern(usageOrdinals, item.getUsage());
+    }
+
+    /** Index of the item with this id, or -1 when it is not part of the table. */
+    int indexOf(long id) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) return i;
+        }
+        return -1;
+    }
+
+    /** Ordinal of a requested season, comparable with the {@link #season} column. */
+    int seasonOrdinal(String requested) {
+        return lookup(seasonOrdinals, requested);
+    }
+
+    /** Ordinal of a requested style, comparable with the {@link #usage} column. */
+    int usageOrdinal(String requested) {
+        return lookup(usageOrdinals, requested);
+    }
+
+    /** Category name of a slot as the categories spell it, e.g. "Topwear". */
+    static String slotName(int slot) {
+        String name = SLOT_NAMES[slot];
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /** Perceptual (ΔE) distance between the base colors of two items. */
+    double colorDistance(int a, int b) {
+        return colors.distance(color[a], color[b]);
+    }
+
+    private static int slotOf(ClothingItem item) {
+        return slotOf(item.getCategory() != null ? item.getCategory().getName() : null);
+    }
+
+    /** Slot of a clothing category name; {@link #OTHER_SLOT} when it is none of the outfit slots. */
+    static int slotOf(String categoryName) {
+        if (categoryName == null) return OTHER_SLOT;
+        String name = categoryName.toLowerCase(Locale.ROOT);
+        for (int s = 0; s < SLOT_NAMES.length; s++) {
+            if (SLOT_NAMES[s].equals(name)) return s;
+        }
+        return OTHER_SLOT;
+    }
+
+    private static Map<String, Integer> dictionary(String[] known) {
+        Map<String, Integer> ordinals = new HashMap<>();
+        for (int i = 0; i < known.length; i++) {
+            ordinals.put(known[i], i);
+        }
+        return ordinals;
+    }
+
+    private static int intern(Map<String, Integer> ordinals, String value) {
+        if (value == null) return NONE;
+        return ordinals.computeIfAbsent(value.toLowerCase(Locale.ROOT), k -> ordinals.size());
+    }
+
+    private static int lookup(Map<String, Integer> ordinals, String value) {
+        if (value == null) return NONE;
+        return ordinals.getOrDefault(value.toLowerCase(Locale.ROOT), UNMATCHED);
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.outfitcheck.service;
+
+import org.example.outfitcheck.entity.ClothingItem;
+import org.example.outfitcheck.repository.ClothingItemRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded LRU of the {@link WardrobeFeatures} table of recently active users.
+ *
+ * A table is built from the database once and then kept current from {@link WardrobeChangedEvent}s:
+ * adding, removing or toggling one item copies the table with that single row changed, O(wardrobe),
+ * instead of reloading and re-resolving the whole wardrobe on the next generation. Each entry
+ * remembers the wardrobe version it reflects; an entry that fell behind (a missed or concurrent
+ * update) is simply rebuilt. Pair weights between items need no per-user storage, they are read
+ * from the palette ΔE matrix of {@link ColorSpaceService} through the items' color ordinals.
+ */
+@Service
+public class WardrobeIndexService {
+
+    private record Entry(long version, WardrobeFeatures features) {
+    }
+
+    private final ClothingItemRepository clothingItemRepository;
+    private final ColorSpaceService colorSpaceService;
+    private final WardrobeVersionService wardrobeVersionService;
+    private final Map<Long, Entry> entries;
+
+    public WardrobeIndexService(ClothingItemRepository clothingItemRepository,
+                                ColorSpaceService colorSpaceService,
+                                WardrobeVersionService wardrobeVersionService,
+                                @Value("${outfit.wardrobe-index.max-users:1000}") int maxUsers) {
+        this.clothingItemRepository = clothingItemRepository;
+        this.colorSpaceService = colorSpaceService;
+        this.wardrobeVersionService = wardrobeVersionService;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    /** Feature table of the user's available items, ordered by id. */
+    public WardrobeFeatures features(Long userId) {
+        // read the version first: a change committed during the load is applied again on top, which is harmless
+        long version = wardrobeVersionService.currentVersion(userId);
+        WardrobeFeatures cached = cached(userId, version);
+        if (cached != null) {
+            return cached;
+        }
+
+        WardrobeFeatures features = load(userId);
+        synchronized (entries) {
+            entries.put(userId, new Entry(version, features));
+        }
+        return features;
+    }
+
+    /**
+     * Same as {@link #features}, but a table that is not cached is built without being added, so a
+     * batch job going through every user does not push out the tables of active users.
+     */
+    public WardrobeFeatures featuresUncached(Long userId) {
+        WardrobeFeatures cached = cached(userId, wardrobeVersionService.currentVersion(userId));
+        return cached != null ? cached : load(userId);
+    }
+
+    private WardrobeFeatures cached(Long userId, long version) {
+        synchronized (entries) {
+            Entry entry = entries.get(userId);
+            return entry != null && entry.version() == version ? entry.features() : null;
+        }
+    }
+
+    private WardrobeFeatures load(Long userId) {
+        List<ClothingItem> items = new ArrayList<>(clothingItemRepository.findByOwnerIdAndInLaundryFalse(userId));
+        items.sort(Comparator.comparing(ClothingItem::getId));
+        return WardrobeFeatures.of(items, colorSpaceService);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWardrobeChanged(WardrobeChangedEvent event) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(event.userId());
+        }
+        if (entry == null) {
+            return;
+        }
+
+        WardrobeFeatures updated = switch (event.change()) {
+            case WORN -> entry.features();
+            case DELETED -> entry.features().without(event.itemId());
+            // the item as it is now: available items are (re)inserted, anything else leaves the table
+            case ADDED, LAUNDRY_TOGGLED -> clothingItemRepository.findById(event.itemId())
+                    .filter(item -> !item.isInLaundry())
+                    .map(entry.features()::with)
+                    .orElseGet(() -> entry.features().without(event.itemId()));
+        };
+
+        synchronized (entries) {
+            if (entries.get(event.userId()) == entry) {
+                entries.put(event.userId(), new Entry(entry.version() + 1, updated));
+            } else {
+                // another update got in between, let the next read rebuild
+                entries.remove(event.userId());
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.outfitcheck.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user wardrobe version, bumped after every committed wardrobe change. Anything derived
+ * from a wardrobe can be keyed by (userId, version) and never needs explicit invalidation.
+ */
+@Service
+public class WardrobeVersionService {
+
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public long currentVersion(Long userId) {
+        AtomicLong version = versions.get(userId);
+        return version != null ? version.get() : 0L;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWardrobeChanged(WardrobeChangedEvent event) {
+        versions.computeIfAbsent(event.userId(), id -> new AtomicLong()).incrementAndGet();
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.outfitcheck.service;
+
+import org.example.outfitcheck.repository.LoggedOutfitRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+/**
+ * Recent wear of a user's items, from the logged outfits, aligned with a {@link WardrobeFeatures}
+ * table. One aggregated query per call, so scoring reads an array instead of looking up the
+ * history of every item.
+ */
+@Service
+public class WearHistoryService {
+
+    /** The item was not worn within the window. */
+    static final int NOT_WORN = -1;
+
+    private final LoggedOutfitRepository loggedOutfitRepository;
+
+    public WearHistoryService(LoggedOutfitRepository loggedOutfitRepository) {
+        this.loggedOutfitRepository = loggedOutfitRepository;
+    }
+
+    /**
+     * Days since each item was last worn (0 = today), by wardrobe index; {@link #NOT_WORN} for items
+     * not worn in the last {@code windowDays} days. Null when the window is empty.
+     */
+    int[] daysSinceWorn(Long userId, WardrobeFeatures wardrobe, int windowDays) {
+        if (windowDays <= 0) {
+            return null;
+        }
+        LocalDate today = LocalDate.now();
+        int[] days = new int[wardrobe.size];
+        Arrays.fill(days, NOT_WORN);
+        for (LoggedOutfitRepository.ItemLastWorn worn :
+                loggedOutfitRepository.findLastWornBetween(userId, today.minusDays(windowDays - 1), today)) {
+            int index = wardrobe.indexOf(worn.getItemId());
+            if (index >= 0) {
+                days[index] = (int) ChronoUnit.DAYS.between(worn.getLastWorn(), today);
+            }
+        }
+        return days;
+    }
+}
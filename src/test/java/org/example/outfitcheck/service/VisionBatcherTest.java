@@ -0,0 +1,159 @@
+package org.example.outfitcheck.service;
+
+import com.google.cloud.vision.v1.AnnotateImageRequest;
+import com.google.cloud.vision.v1.AnnotateImageResponse;
+import com.google.cloud.vision.v1.BatchAnnotateImagesResponse;
+import com.google.cloud.vision.v1.EntityAnnotation;
+import com.google.cloud.vision.v1.Image;
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VisionBatcherTest {
+
+    private static final long NO_BYTE_LIMIT = Long.MAX_VALUE;
+
+    /** Answers every image with a logo named after the image's content and records the batches. */
+    private static class FakeAnnotator implements ImageAnnotator {
+        final List<List<AnnotateImageRequest>> batches = new CopyOnWriteArrayList<>();
+        final CountDownLatch firstCall = new CountDownLatch(1);
+        volatile CountDownLatch release = new CountDownLatch(0);
+        volatile Exception failure;
+
+        @Override
+        public BatchAnnotateImagesResponse annotate(List<AnnotateImageRequest> requests) throws Exception {
+            batches.add(List.copyOf(requests));
+            firstCall.countDown();
+            release.await();
+            if (failure != null) throw failure;
+            BatchAnnotateImagesResponse.Builder responses = BatchAnnotateImagesResponse.newBuilder();
+            for (AnnotateImageRequest request : requests) {
+                responses.addResponses(AnnotateImageResponse.newBuilder()
+                        .addLogoAnnotations(EntityAnnotation.newBuilder()
+                                .setDescription(request.getImage().getContent().toStringUtf8())
+                                .build())
+                        .build());
+            }
+            return responses.build();
+        }
+    }
+
+    private final FakeAnnotator annotator = new FakeAnnotator();
+    private VisionBatcher batcher;
+
+    @AfterEach
+    void stop() {
+        if (batcher != null) batcher.stop();
+    }
+
+    @Test
+    void eachCallerGetsTheResponseToItsOwnImage() throws Exception {
+        annotator.release = new CountDownLatch(1);
+        batcher = new VisionBatcher(annotator, 16, NO_BYTE_LIMIT, 200, 1);
+
+        CompletableFuture<AnnotateImageResponse> blocker = batcher.submit(image("blocker"));
+        assertTrue(annotator.firstCall.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<AnnotateImageResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < 5; i++) responses.add(batcher.submit(image("image-" + i)));
+        annotator.release.countDown();
+
+        assertEquals("blocker", logo(blocker));
+        for (int i = 0; i < 5; i++) assertEquals("image-" + i, logo(responses.get(i)));
+        assertEquals(2, annotator.batches.size());
+        assertEquals(5, annotator.batches.get(1).size());
+    }
+
+    @Test
+    void batchesStopAtTheMaximumSize() throws Exception {
+        annotator.release = new CountDownLatch(1);
+        batcher = new VisionBatcher(annotator, 2, NO_BYTE_LIMIT, 200, 1);
+
+        batcher.submit(image("blocker"));
+        assertTrue(annotator.firstCall.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<AnnotateImageResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < 5; i++) responses.add(batcher.submit(image("image-" + i)));
+        annotator.release.countDown();
+
+        for (CompletableFuture<AnnotateImageResponse> response : responses) logo(response);
+        assertEquals(List.of(1, 2, 2, 1), batchSizes());
+    }
+
+    @Test
+    void batchesStopBeforeTheByteLimit() throws Exception {
+        annotator.release = new CountDownLatch(1);
+        AnnotateImageRequest sample = image("x".repeat(40));
+        // room for two of the images below, not three
+        long limit = 2L * sample.getSerializedSize() + sample.getSerializedSize() / 2;
+        batcher = new VisionBatcher(annotator, 16, limit, 200, 1);
+
+        batcher.submit(image("blocker"));
+        assertTrue(annotator.firstCall.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<AnnotateImageResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < 5; i++) responses.add(batcher.submit(image(i + "x".repeat(39))));
+        CompletableFuture<AnnotateImageResponse> oversized = batcher.submit(image("x".repeat(200)));
+        annotator.release.countDown();
+
+        for (int i = 0; i < 5; i++) assertEquals(i + "x".repeat(39), logo(responses.get(i)));
+        assertEquals("x".repeat(200), logo(oversized));
+        assertEquals(List.of(1, 2, 2, 1, 1), batchSizes());
+        for (List<AnnotateImageRequest> batch : annotator.batches.subList(1, 4)) {
+            assertTrue(batch.stream().mapToLong(AnnotateImageRequest::getSerializedSize).sum() <= limit);
+        }
+    }
+
+    @Test
+    void aLoneRequestIsSentOnceTheLingerTimeIsOver() throws Exception {
+        batcher = new VisionBatcher(annotator, 16, NO_BYTE_LIMIT, 20, 1);
+
+        assertEquals("alone", logo(batcher.submit(image("alone"))));
+        assertEquals(List.of(1), batchSizes());
+    }
+
+    @Test
+    void aFailedCallFailsEveryCallerInTheBatch() throws Exception {
+        Exception failure = new IllegalStateException("Vision is down");
+        annotator.failure = failure;
+        annotator.release = new CountDownLatch(1);
+        batcher = new VisionBatcher(annotator, 16, NO_BYTE_LIMIT, 200, 1);
+
+        List<CompletableFuture<AnnotateImageResponse>> responses = new ArrayList<>();
+        responses.add(batcher.submit(image("blocker")));
+        assertTrue(annotator.firstCall.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++) responses.add(batcher.submit(image("image-" + i)));
+        annotator.release.countDown();
+
+        for (CompletableFuture<AnnotateImageResponse> response : responses) {
+            ExecutionException error = assertThrows(ExecutionException.class,
+                    () -> response.get(5, TimeUnit.SECONDS));
+            assertSame(failure, error.getCause());
+        }
+        assertEquals(List.of(1, 3), batchSizes());
+    }
+
+    private List<Integer> batchSizes() {
+        return annotator.batches.stream().map(List::size).toList();
+    }
+
+    private static AnnotateImageRequest image(String content) {
+        return AnnotateImageRequest.newBuilder()
+                .setImage(Image.newBuilder().setContent(ByteString.copyFromUtf8(content)).build())
+                .build();
+    }
+
+    private static String logo(CompletableFuture<AnnotateImageResponse> response) throws Exception {
+        return response.get(5, TimeUnit.SECONDS).getLogoAnnotations(0).getDescription();
+    }
+}